@@ -0,0 +1,163 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SIMD escape-time kernel on jdk.incubator.vector (run with --add-modules jdk.incubator.vector).
+ * Iterates one lane per pixel (4 lanes on AVX2, 8 on AVX-512); a mask tracks the lanes still
+ * inside |z| <= 2 and only those lanes advance and count. The arithmetic is the same as the
+ * scalar loop (no FMA), so every lane gets exactly the scalar iteration count.
+ * The float tier (Mandelbrot only) runs the same loop on float lanes, twice as many per vector.
+ * Kept out of src so the rest compiles without the module; loaded reflectively by EscapeTime, never reference it directly.
+ */
+final class VectorEscapeTime implements EscapeTime.Batch {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    // Float lanes count iterations exactly up to 2^24; longer limits take the scalar loop
+    private static final int FLOAT_COUNT_LIMIT = 1 << 24;
+
+    @Override
+    public void mandelbrot(double[] c_a, double[] c_b, int count, int maxIterations, int[] out, LongAdder skipped) {
+        int lanes = SPECIES.length();
+        int k = 0;
+        for (; k + lanes <= count; k += lanes) {
+            // Points that are settled without iterating: outside radius 2, or in the cardioid / period-2 bulb
+            boolean[] settled = new boolean[lanes];
+            boolean any = false;
+            for (int l = 0; l < lanes; l++) {
+                double a = c_a[k + l], b = c_b[k + l];
+                // Equation ( (c_a * c_a) + (c_b * c_b) <= 4 ) proof in 1.2
+                if ((a * a) + (b * b) > 4) {
+                    out[k + l] = EscapeTime.OUTSIDE_RADIUS;
+                    settled[l] = true;
+                } else if (EscapeTime.inCardioidOrBulb(a, b)) {
+                    out[k + l] = maxIterations;
+                    settled[l] = true;
+                    if (skipped != null) skipped.add(maxIterations);
+                } else {
+                    any = true;
+                }
+            }
+            if (!any) continue;
+
+            DoubleVector ca = DoubleVector.fromArray(SPECIES, c_a, k);
+            DoubleVector cb = DoubleVector.fromArray(SPECIES, c_b, k);
+            VectorMask<Double> active = VectorMask.fromArray(SPECIES, settled, 0).not();
+            int[] counts = iterate(DoubleVector.zero(SPECIES), DoubleVector.zero(SPECIES), ca, cb, active, maxIterations);
+            for (int l = 0; l < lanes; l++) if (!settled[l]) out[k + l] = counts[l];
+        }
+        // Tail shorter than one vector
+        for (; k < count; k++) out[k] = EscapeTime.mandelbrot(c_a[k], c_b[k], maxIterations, skipped);
+    }
+
+    @Override
+    public void julia(double[] z_a, double[] z_b, int count, double c_a, double c_b, int maxIterations, int[] out) {
+        // Equation ( (c_a * c_a) + (c_b * c_b) <= 4 ) proof in 1.2
+        if ((c_a * c_a) + (c_b * c_b) > 4) {
+            java.util.Arrays.fill(out, 0, count, EscapeTime.OUTSIDE_RADIUS);
+            return;
+        }
+        int lanes = SPECIES.length();
+        DoubleVector ca = DoubleVector.broadcast(SPECIES, c_a);
+        DoubleVector cb = DoubleVector.broadcast(SPECIES, c_b);
+        int k = 0;
+        for (; k + lanes <= count; k += lanes) {
+            int[] counts = iterate(DoubleVector.fromArray(SPECIES, z_a, k), DoubleVector.fromArray(SPECIES, z_b, k),
+                    ca, cb, SPECIES.maskAll(true), maxIterations);
+            System.arraycopy(counts, 0, out, k, lanes);
+        }
+        for (; k < count; k++) out[k] = EscapeTime.julia(z_a[k], z_b[k], c_a, c_b, maxIterations);
+    }
+
+    /**
+     * z_{n+1} = z_n^2 + c on every lane in active until it leaves |z| <= 2 or maxIterations is reached.
+     * Equations proof in 1.4 and 1.5
+     */
+    private static int[] iterate(DoubleVector za, DoubleVector zb, DoubleVector ca, DoubleVector cb,
+                                 VectorMask<Double> active, int maxIterations) {
+        DoubleVector four = DoubleVector.broadcast(SPECIES, 4);
+        DoubleVector n = DoubleVector.zero(SPECIES);
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1);
+
+        active = active.and(za.mul(za).add(zb.mul(zb)).compare(VectorOperators.LE, four));
+        for (int i = 0; i < maxIterations && active.anyTrue(); i++) {
+            DoubleVector zn_a = za.mul(za).sub(zb.mul(zb)).add(ca);
+            DoubleVector zn_b = za.mul(zb).mul(2).add(cb);
+
+            // Escaped lanes keep their last z so they stay escaped
+            za = za.blend(zn_a, active);
+            zb = zb.blend(zn_b, active);
+            n = n.add(one, active);
+
+            active = active.and(za.mul(za).add(zb.mul(zb)).compare(VectorOperators.LE, four));
+        }
+
+        double[] lanes = n.toArray();
+        int[] counts = new int[lanes.length];
+        for (int l = 0; l < lanes.length; l++) counts[l] = (int) lanes[l];
+        return counts;
+    }
+
+    @Override
+    public void mandelbrotFloat(float[] c_a, float[] c_b, int count, int maxIterations, int[] out, LongAdder skipped) {
+        int lanes = FLOATS.length();
+        int k = 0;
+        for (; k + lanes <= count && maxIterations < FLOAT_COUNT_LIMIT; k += lanes) {
+            boolean[] settled = new boolean[lanes];
+            boolean any = false;
+            for (int l = 0; l < lanes; l++) {
+                float a = c_a[k + l], b = c_b[k + l];
+                // Equation ( (c_a * c_a) + (c_b * c_b) <= 4 ) proof in 1.2
+                if ((a * a) + (b * b) > 4) {
+                    out[k + l] = EscapeTime.OUTSIDE_RADIUS;
+                    settled[l] = true;
+                } else if (EscapeTime.inCardioidOrBulb(a, b)) {
+                    out[k + l] = maxIterations;
+                    settled[l] = true;
+                    if (skipped != null) skipped.add(maxIterations);
+                } else {
+                    any = true;
+                }
+            }
+            if (!any) continue;
+
+            FloatVector ca = FloatVector.fromArray(FLOATS, c_a, k);
+            FloatVector cb = FloatVector.fromArray(FLOATS, c_b, k);
+            VectorMask<Float> active = VectorMask.fromArray(FLOATS, settled, 0).not();
+            int[] counts = iterate(FloatVector.zero(FLOATS), FloatVector.zero(FLOATS), ca, cb, active, maxIterations);
+            for (int l = 0; l < lanes; l++) if (!settled[l]) out[k + l] = counts[l];
+        }
+        for (; k < count; k++) out[k] = EscapeTime.mandelbrotFloat(c_a[k], c_b[k], maxIterations, skipped);
+    }
+
+    // Float lanes of iterate() above
+    private static int[] iterate(FloatVector za, FloatVector zb, FloatVector ca, FloatVector cb,
+                                 VectorMask<Float> active, int maxIterations) {
+        FloatVector four = FloatVector.broadcast(FLOATS, 4);
+        FloatVector n = FloatVector.zero(FLOATS);
+        FloatVector one = FloatVector.broadcast(FLOATS, 1);
+
+        active = active.and(za.mul(za).add(zb.mul(zb)).compare(VectorOperators.LE, four));
+        for (int i = 0; i < maxIterations && active.anyTrue(); i++) {
+            FloatVector zn_a = za.mul(za).sub(zb.mul(zb)).add(ca);
+            FloatVector zn_b = za.mul(zb).mul(2).add(cb);
+
+            za = za.blend(zn_a, active);
+            zb = zb.blend(zn_b, active);
+            n = n.add(one, active);
+
+            active = active.and(za.mul(za).add(zb.mul(zb)).compare(VectorOperators.LE, four));
+        }
+
+        float[] lanes = n.toArray();
+        int[] counts = new int[lanes.length];
+        for (int l = 0; l < lanes.length; l++) counts[l] = (int) lanes[l];
+        return counts;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Adaptive maxIterations.
+ * - Zoom depth gives a starting estimate: deeper views need more iterations to resolve the boundary
+ * - The finished frame refines it: many pixels escaping in the last part of the budget means
+ *   the limit cuts the boundary off (raise it); all escapes far below the limit means it is wasted (lower it)
+ */
+final class AdaptiveIterations {
+
+    // Use the adaptive limit instead of the Iterations field (toggled from the control bar)
+    static volatile boolean enabled = false;
+
+    static final int MIN_ITERATIONS = 256;
+    static final int MAX_ITERATIONS = 1_000_000;
+
+    // Escapes in the top LATE_BAND of the budget count as "late"
+    static final double LATE_BAND = 0.1;
+    // Raise the limit when more than this share of escaped pixels escape late
+    static final double LATE_SHARE = 0.005;
+
+    // Re-renders of one view with a raised limit before settling
+    static final int MAX_RETRIES = 2;
+
+    private AdaptiveIterations() {}
+
+    // Starting estimate from zoom depth alone: 200 × (log10(zoom) + 1)^1.5
+    static int estimate(double zoom) {
+        double depth = Math.max(0, Math.log10(zoom)) + 1;
+        return clamp((long) (200 * Math.pow(depth, 1.5)));
+    }
+
+    /**
+     * Limit the frame rendered with maxIterations suggests for the same view:
+     * doubled when too many pixels escaped late, otherwise twice the latest escape (never under MIN_ITERATIONS).
+     */
+    static int refine(int maxIterations, int[] counts) {
+        long escaped = 0, late = 0;
+        int latest = 0;
+        int lateFrom = (int) (maxIterations * (1 - LATE_BAND));
+        for (int n : counts) {
+            if (n < 0 || n >= maxIterations) continue; // radius-rejected, unrendered or interior
+            escaped++;
+            if (n >= lateFrom) late++;
+            if (n > latest) latest = n;
+        }
+        if (escaped == 0) return maxIterations;
+        if (late > escaped * LATE_SHARE) return clamp(2L * maxIterations);
+        return clamp(Math.min(maxIterations, 2L * latest));
+    }
+
+    // Limit for a new frame at zoom, given the previous frame's counts and limit (counts may be null)
+    static int forFrame(double zoom, int[] previousCounts, int previousMax) {
+        int estimate = estimate(zoom);
+        if (previousCounts == null) return estimate;
+        return Math.max(estimate, refine(previousMax, previousCounts));
+    }
+
+    private static int clamp(long n) {
+        return (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, n));
+    }
+}
@@ -0,0 +1,101 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Batch CLI: renders a list of views to PNG files without a display.
+ *
+ *   java -Djava.awt.headless=true Main --batch views.txt outputDir
+ *
+ * One view per line, blank lines and lines starting with # are ignored:
+ *   mandelbrot xMin xMax yMin yMax width height maxIterations
+ *   julia c_a c_b xMin xMax yMin yMax width height maxIterations
+ * A trailing "lattice" (written for images saved from the tile cache) renders the view on the
+ * TileCache lattice it was drawn on instead of with its window's own pixel mapping.
+ * The n-th view is written to outputDir/view<n>.png. An optional line
+ *   colouring scheme cycleOffset equalise
+ * (as in the Colouring metadata of saved images) sets the colouring of the whole file.
+ */
+final class BatchRender {
+
+    private BatchRender() {}
+
+    static void run(String viewFile, String outputDir) throws IOException {
+        List<FractalView> views = parse(Files.readAllLines(new File(viewFile).toPath(), StandardCharsets.UTF_8));
+        File dir = new File(outputDir);
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create output directory " + dir);
+
+        for (int n = 0; n < views.size(); n++) {
+            FractalView view = views.get(n);
+            File file = new File(dir, "view" + (n + 1) + ".png");
+            long start = System.nanoTime();
+            FractalRenderer.renderToPng(view, file);
+            System.out.printf("%s -> %s (%.0f ms)%n", view, file, (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    static List<FractalView> parse(List<String> lines) {
+        List<FractalView> views = new ArrayList<>();
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n).trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            try {
+                String[] f = line.split("\\s+");
+                if (f[0].equalsIgnoreCase("colouring")) parseColouring(f);
+                else views.add(parseView(f));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Line " + (n + 1) + ": " + e.getMessage() + " in \"" + line + "\"", e);
+            }
+        }
+        return views;
+    }
+
+    // Inverse of parse for one view: a line that renders view again exactly
+    static String format(FractalView view) {
+        String bounds = view.xMin + " " + view.xMax + " " + view.yMin + " " + view.yMax + " "
+                + view.width + " " + view.height + " " + view.maxIterations;
+        if (view.lattice) bounds += " lattice";
+        return view.julia ? "julia " + view.c_a + " " + view.c_b + " " + bounds : "mandelbrot " + bounds;
+    }
+
+    // Line that restores the current colouring settings when parsed
+    static String formatColouring() {
+        return "colouring " + Colouring.scheme.name() + " " + Colouring.cycleOffset + " " + Colouring.equalise;
+    }
+
+    private static void parseColouring(String[] f) {
+        if (f.length != 4) throw new IllegalArgumentException("expected 3 values after colouring");
+        Colouring.scheme = ColourScheme.valueOf(f[1].toUpperCase());
+        Colouring.cycleOffset = Integer.parseInt(f[2]);
+        Colouring.equalise = Boolean.parseBoolean(f[3]);
+    }
+
+    private static FractalView parseView(String[] f) {
+        boolean lattice = f[f.length - 1].equalsIgnoreCase("lattice");
+        if (lattice) f = Arrays.copyOf(f, f.length - 1);
+        FractalView view;
+        switch (f[0].toLowerCase()) {
+            case "mandelbrot":
+                if (f.length != 8) throw new IllegalArgumentException("expected 7 values after mandelbrot");
+                view = FractalView.mandelbrot(d(f[1]), d(f[2]), d(f[3]), d(f[4]),
+                        Integer.parseInt(f[5]), Integer.parseInt(f[6]), Integer.parseInt(f[7]));
+                break;
+            case "julia":
+                if (f.length != 10) throw new IllegalArgumentException("expected 9 values after julia");
+                view = FractalView.julia(d(f[1]), d(f[2]), d(f[3]), d(f[4]), d(f[5]), d(f[6]),
+                        Integer.parseInt(f[7]), Integer.parseInt(f[8]), Integer.parseInt(f[9]));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown fractal " + f[0]);
+        }
+        return lattice ? view.onLattice() : view;
+    }
+
+    private static double d(String s) {
+        return Double.parseDouble(s);
+    }
+}
@@ -0,0 +1,152 @@
+import java.awt.image.BufferedImage;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Kernel and render-mode benchmarks, runnable headless with no external libraries:
+ *
+ *   java -Djava.awt.headless=true Benchmark [--quick]
+ *
+ * Every (view, resolution, iteration limit, path) case is warmed up, then timed over several runs;
+ * the best run is reported as milliseconds per frame, pixels per second and iterations per second.
+ * Paths: serial (one pixel at a time on the calling thread, like the original loop),
+ * tiled brute force and tiled Mariani-Silver on the shared RenderEngine.
+ * Iterations per second counts the frame's escape-time counts, so interior points count
+ * maxIterations even when the cardioid or periodicity shortcuts skipped them.
+ */
+final class Benchmark {
+
+    static final int WARMUP_RUNS = 2;
+    static final int MEASURED_RUNS = 5;
+
+    // Standard views (xMin, xMax, yMin, yMax around the centre, at 16:9 so resolution does not distort them)
+    private static final Case[] VIEWS = {
+            new Case("full set", false, 0, 0, -0.75, 0, 3.5),
+            new Case("seahorse valley", false, 0, 0, -0.7435, 0.1314, 0.002),
+            new Case("deep zoom 1e-20", false, 0, 0, -0.743643887037158704752191506114774, 0.131825904205311970493132056385139, 1e-20),
+            new Case("julia c inside", true, -0.123, 0.745, 0, 0, 3.5),
+            new Case("julia c outside", true, 0.3, 0.5, 0, 0, 3.5),
+    };
+
+    private Benchmark() {}
+
+    public static void main(String[] args) {
+        boolean quick = args.length > 0 && args[0].equals("--quick");
+        int[][] resolutions = quick ? new int[][]{{640, 360}} : new int[][]{{640, 360}, {1920, 1080}};
+        int[] iterationLimits = quick ? new int[]{500} : new int[]{500, 5000};
+
+        System.out.println("Kernel: " + EscapeTime.BATCH.getClass().getSimpleName()
+                + ", cores: " + RenderEngine.POOL.getParallelism());
+        System.out.printf("%-18s %-10s %6s %-16s %10s %14s %14s%n",
+                "view", "size", "iter", "path", "ms/frame", "Mpixels/s", "Miter/s");
+
+        for (Case view : VIEWS) {
+            for (int[] res : resolutions) {
+                for (int max : iterationLimits) {
+                    run(view, res[0], res[1], max, "serial");
+                    run(view, res[0], res[1], max, "tiled");
+                    run(view, res[0], res[1], max, "mariani-silver");
+                }
+            }
+        }
+    }
+
+    private static void run(Case view, int width, int height, int max, String path) {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        long best = Long.MAX_VALUE;
+        long iterations = 0;
+
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            LongAdder total = new LongAdder();
+            PixelKernel kernel = new CountingKernel(view.kernel(width, height, max), total);
+
+            long start = System.nanoTime();
+            switch (path) {
+                case "serial":
+                    for (int i = 0; i < width; i++)
+                        for (int j = 0; j < height; j++) kernel.iterations(i, j);
+                    break;
+                case "tiled":
+                    RenderEngine.render(img, kernel, max, RenderMode.BRUTE_FORCE);
+                    break;
+                default:
+                    RenderEngine.render(img, kernel, max, RenderMode.MARIANI_SILVER);
+            }
+            long time = System.nanoTime() - start;
+
+            if (run >= WARMUP_RUNS && time < best) {
+                best = time;
+                iterations = total.sum();
+            }
+        }
+
+        double seconds = best / 1e9;
+        System.out.printf("%-18s %-10s %6d %-16s %10.1f %14.2f %14.1f%n",
+                view.name, width + "x" + height, max, path, best / 1e6,
+                width * (double) height / seconds / 1e6, iterations / seconds / 1e6);
+    }
+
+    // One benchmark view, given as centre and width so it keeps its shape at every resolution
+    private static final class Case {
+        final String name;
+        final boolean julia;
+        final double c_a, c_b;
+        final String centerX, centerY;
+        final double spanX;
+
+        Case(String name, boolean julia, double c_a, double c_b, double centerX, double centerY, double spanX) {
+            this(name, julia, c_a, c_b, String.valueOf(centerX), String.valueOf(centerY), spanX);
+        }
+
+        Case(String name, boolean julia, double c_a, double c_b, String centerX, String centerY, double spanX) {
+            this.name = name;
+            this.julia = julia;
+            this.c_a = c_a;
+            this.c_b = c_b;
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.spanX = spanX;
+        }
+
+        PixelKernel kernel(int width, int height, int max) {
+            double spanY = spanX * height / width;
+            Precision precision = Precision.select(spanX / width);
+            if (!julia && precision.isDeep()) {
+                Perturbation deep = new Perturbation(new BigDecimal(centerX), new BigDecimal(centerY),
+                        Math.hypot(spanX, spanY) / 2, max, precision);
+                return (i, j) -> deep.iterations((i / (double) width - 0.5) * spanX, (j / (double) height - 0.5) * spanY);
+            }
+            double cx = Double.parseDouble(centerX), cy = Double.parseDouble(centerY);
+            double xMin = cx - spanX / 2, xMax = cx + spanX / 2, yMin = cy - spanY / 2, yMax = cy + spanY / 2;
+            return julia
+                    ? FractalView.julia(c_a, c_b, xMin, xMax, yMin, yMax, width, height, max).kernel()
+                    : FractalView.mandelbrot(xMin, xMax, yMin, yMax, width, height, max).kernel();
+        }
+    }
+
+    // Sums the iteration counts a kernel returns, without hiding its column (SIMD) path
+    private static final class CountingKernel implements PixelKernel {
+        private final PixelKernel kernel;
+        private final LongAdder total;
+
+        CountingKernel(PixelKernel kernel, LongAdder total) {
+            this.kernel = kernel;
+            this.total = total;
+        }
+
+        @Override
+        public int iterations(int i, int j) {
+            int n = kernel.iterations(i, j);
+            total.add(Math.max(n, 0));
+            return n;
+        }
+
+        @Override
+        public void iterations(int i, int j, int count, int[] out) {
+            kernel.iterations(i, j, count, out);
+            long sum = 0;
+            for (int k = 0; k < count; k++) sum += Math.max(out[k], 0);
+            total.add(sum);
+        }
+    }
+}
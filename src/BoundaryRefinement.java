@@ -0,0 +1,212 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Boundary-only supersampling pass, run over a finished RenderEngine job, for two modes that can be combined.
+ * Anti-aliasing: pixels whose iteration count differs by more than EDGE_DIFFERENCE from a neighbour (or that
+ * border the set) get 4 rotated-grid samples, plus 16 jittered ones when those 4 counts still disagree.
+ * Distance estimation: every escaped pixel also gets the distance from its centre to the set (EscapeTime
+ * tracks dz/dc, or dz/dz_0 for Julia). Only pixels closer than REFINE_DISTANCE are supersampled: 4 rotated-grid
+ * samples, plus 16 jittered ones when those 4 disagree by more than FINE_SPREAD. Each sample is darkened when it
+ * lies within LINE_WIDTH of the set, so filaments thinner than a pixel still show as sharp lines, without
+ * supersampling the whole frame.
+ * The samples are kept in a Result, so recolouring re-blends them instead of falling back to one sample per pixel.
+ */
+final class BoundaryRefinement {
+
+    // Distance-estimation shading and supersampling (toggled from the control bar)
+    static volatile boolean distanceEstimation = false;
+
+    // Edge-directed anti-aliasing (toggled from the control bar)
+    static volatile boolean antiAliasing = false;
+
+    // Neighbouring counts further apart than this make an edge
+    static final int EDGE_DIFFERENCE = 1;
+
+    // Distances are in pixels
+    static final double REFINE_DISTANCE = 1;
+    static final double LINE_WIDTH = 0.5;
+
+    // Shade spread (0..255) among the rotated-grid samples that calls for the jittered pass
+    static final int FINE_SPREAD = 96;
+
+    // Rotated-grid 2x2 pattern: offsets from the pixel centre, no two samples share a row or column
+    private static final double[][] ROTATED_GRID = {{-0.375, -0.125}, {0.125, -0.375}, {0.375, 0.125}, {-0.125, 0.375}};
+    private static final int FINE_GRID = 4; // jittered FINE_GRID × FINE_GRID
+
+    private BoundaryRefinement() {}
+
+    static boolean enabled() {
+        return distanceEstimation || antiAliasing;
+    }
+
+    // Refines job on the render pool; onDone runs on a worker once the refined pixels are in the image
+    static void submit(RenderEngine.Job job, Runnable onDone) {
+        RenderEngine.POOL.execute(() -> {
+            Result result = refine(job);
+            if (result != null && !job.isCancelled()) {
+                job.refine(result);
+                onDone.run();
+            }
+        });
+    }
+
+    /**
+     * Supersamples the boundary pixels of a finished job, blocking.
+     * Returns null when the job was cancelled or its kernel cannot be sampled between pixels.
+     */
+    static Result refine(RenderEngine.Job job) {
+        if (!(job.kernel instanceof SubpixelKernel)) return null;
+        SubpixelKernel kernel = (SubpixelKernel) job.kernel;
+        int width = job.target.getWidth(), height = job.target.getHeight();
+        int[] counts = job.counts();
+        int max = job.maxIterations;
+        boolean estimate = distanceEstimation, antiAlias = antiAliasing;
+
+        Row[] rows = new Row[height];
+        IntStream.range(0, height).parallel().forEach(row -> {
+            if (job.isCancelled()) return;
+            Row r = new Row();
+            double[] distance = new double[1];
+            int j = height - 1 - row; // raster row to kernel j
+            for (int i = 0; i < width; i++) {
+                int k = row * width + i;
+                int n = counts[k];
+                if (n == RenderEngine.UNRENDERED) continue;
+
+                boolean refine = antiAlias && isEdge(counts, width, height, i, row, max);
+                if (!refine && estimate && n != EscapeTime.OUTSIDE_RADIUS) {
+                    if (n >= max) {
+                        // Interior centre: only worth sampling where the frame leaves the set next to it
+                        refine = bordersExterior(counts, width, height, i, row, max);
+                    } else {
+                        kernel.sample(i, j, distance);
+                        refine = distance[0] < REFINE_DISTANCE; // false for NaN: no estimate
+                    }
+                }
+                if (refine) r.add(k, kernel, i, j, max, estimate ? distance : null);
+            }
+            rows[row] = r;
+        });
+        return job.isCancelled() ? null : new Result(rows);
+    }
+
+    private static boolean isEdge(int[] counts, int width, int height, int i, int row, int maxIterations) {
+        int n = counts[row * width + i];
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int x = i + dx, y = row + dy;
+                if (x < 0 || y < 0 || x >= width || y >= height) continue;
+                int m = counts[y * width + x];
+                if (m == RenderEngine.UNRENDERED) continue;
+                if (Math.abs(m - n) > EDGE_DIFFERENCE || (m >= maxIterations) != (n >= maxIterations)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean bordersExterior(int[] counts, int width, int height, int i, int row, int maxIterations) {
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int x = i + dx, y = row + dy;
+                if (x < 0 || y < 0 || x >= width || y >= height) continue;
+                int n = counts[y * width + x];
+                if (n != RenderEngine.UNRENDERED && n < maxIterations) return true;
+            }
+        }
+        return false;
+    }
+
+    // Supersampled pixels of one raster row: pixel indices and, per pixel, its run of samples
+    private static final class Row {
+        int size;
+        int[] pixel = new int[16];
+        int[] start = new int[17]; // samples of pixel p are start[p] .. start[p + 1)
+        int[] count = new int[64];
+        byte[] shade = new byte[64]; // 0 = black .. 255 = full palette colour
+
+        void add(int k, SubpixelKernel kernel, double i, double j, int maxIterations, double[] distance) {
+            if (size == pixel.length) {
+                pixel = Arrays.copyOf(pixel, size * 2);
+                start = Arrays.copyOf(start, size * 2 + 1);
+            }
+            int s = start[size];
+            int most = ROTATED_GRID.length + FINE_GRID * FINE_GRID;
+            if (s + most > count.length) {
+                count = Arrays.copyOf(count, Math.max(count.length * 2, s + most));
+                shade = Arrays.copyOf(shade, count.length);
+            }
+
+            // Disagreement among the rotated-grid samples: shades with distance estimation, counts without
+            int lo = Integer.MAX_VALUE, hi = Integer.MIN_VALUE;
+            for (double[] offset : ROTATED_GRID) {
+                sample(s, kernel, i + offset[0], j + offset[1], maxIterations, distance);
+                int v = distance != null ? shade[s] & 0xFF : Math.min(count[s], maxIterations);
+                lo = Math.min(lo, v);
+                hi = Math.max(hi, v);
+                s++;
+            }
+            if (hi - lo > (distance != null ? FINE_SPREAD : EDGE_DIFFERENCE)) {
+                // Stratified jitter, seeded by the pixel so the same frame always gets the same samples
+                SplittableRandom random = new SplittableRandom(k);
+                for (int gy = 0; gy < FINE_GRID; gy++) {
+                    for (int gx = 0; gx < FINE_GRID; gx++) {
+                        double x = i + (gx + random.nextDouble()) / FINE_GRID - 0.5;
+                        double y = j + (gy + random.nextDouble()) / FINE_GRID - 0.5;
+                        sample(s++, kernel, x, y, maxIterations, distance);
+                    }
+                }
+            }
+            pixel[size++] = k;
+            start[size] = s;
+        }
+
+        // Stores sample s; without distance estimation (distance == null) it keeps the full palette colour
+        private void sample(int s, SubpixelKernel kernel, double x, double y, int maxIterations, double[] distance) {
+            int n = kernel.sample(x, y, distance);
+            double brightness = 1;
+            if (distance != null) {
+                double d = distance[0];
+                brightness = n >= maxIterations ? 0 : Double.isNaN(d) ? 1 : Math.min(1, d / LINE_WIDTH);
+            }
+            count[s] = n;
+            shade[s] = (byte) Math.round(brightness * 255);
+        }
+    }
+
+    // Samples of every supersampled pixel of a frame
+    static final class Result {
+        private final Row[] rows;
+
+        private Result(Row[] rows) {
+            this.rows = rows;
+        }
+
+        int pixels() {
+            int n = 0;
+            for (Row r : rows) n += r.size;
+            return n;
+        }
+
+        // Colours the supersampled pixels: mean of the samples' palette colours, each scaled by its shade
+        void apply(int[] pixels, Palette palette) {
+            IntStream.range(0, rows.length).parallel().forEach(row -> {
+                Row r = rows[row];
+                for (int p = 0; p < r.size; p++) {
+                    int red = 0, green = 0, blue = 0;
+                    int s0 = r.start[p], s1 = r.start[p + 1];
+                    for (int s = s0; s < s1; s++) {
+                        int rgb = palette.rgb(r.count[s]);
+                        int shade = r.shade[s] & 0xFF;
+                        red += (rgb >> 16 & 0xFF) * shade;
+                        green += (rgb >> 8 & 0xFF) * shade;
+                        blue += (rgb & 0xFF) * shade;
+                    }
+                    int div = (s1 - s0) * 255;
+                    pixels[r.pixel[p]] = (red + div / 2) / div << 16 | (green + div / 2) / div << 8 | (blue + div / 2) / div;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,132 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Buddhabrot window: an OrbitDensity render of a Mandelbrot region, redrawn every REFRESH_DELAY ms
+ * while the samplers converge, until the time budget is spent.
+ * - Buddhabrot / anti-Buddhabrot, iterations and budget can be changed and the render restarted
+ * - Closing the window cancels the samplers
+ */
+public class Buddhabrot extends JPanel {
+
+    // Longest image edge; the other one follows the region's aspect ratio
+    static final int MAX_EDGE = 900;
+
+    static final int REFRESH_DELAY = 250;
+    static final int DEFAULT_SECONDS = 60;
+
+    final double xMin, xMax, yMin, yMax;
+    final int imageWidth, imageHeight;
+    final BufferedImage image;
+    private final int[] pixels;
+    private final JLabel statusLabel = new JLabel(" ");
+    private final Timer refreshTimer = new Timer(REFRESH_DELAY, e -> refresh());
+
+    private OrbitDensity density;
+
+    Buddhabrot(double xMin, double xMax, double yMin, double yMax) {
+        this.xMin = xMin;
+        this.xMax = xMax;
+        this.yMin = yMin;
+        this.yMax = yMax;
+        double aspect = (xMax - xMin) / (yMax - yMin);
+        imageWidth = aspect >= 1 ? MAX_EDGE : Math.max(1, (int) Math.round(MAX_EDGE * aspect));
+        imageHeight = aspect >= 1 ? Math.max(1, (int) Math.round(MAX_EDGE / aspect)) : MAX_EDGE;
+        image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        setPreferredSize(new Dimension(imageWidth, imageHeight));
+        setBackground(Color.BLACK);
+    }
+
+    // Opens a window over the given region and starts sampling; closing it cancels the samplers
+    static void open(double xMin, double xMax, double yMin, double yMax, int maxIterations) {
+        Buddhabrot panel = new Buddhabrot(xMin, xMax, yMin, yMax);
+        JFrame frame = new JFrame("Buddhabrot over [" + xMin + ", " + xMax + "] x [" + yMin + ", " + yMax + "]");
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                panel.stop();
+            }
+        });
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JComboBox<String> modeBox = new JComboBox<>(new String[]{"Buddhabrot", "Anti-Buddhabrot"});
+        controls.add(modeBox);
+        controls.add(new JLabel("  Iterations 🔁:"));
+        JTextField iterationField = new JTextField(String.valueOf(maxIterations), 5);
+        controls.add(iterationField);
+        controls.add(new JLabel("  Seconds:"));
+        JTextField secondsField = new JTextField(String.valueOf(DEFAULT_SECONDS), 4);
+        controls.add(secondsField);
+        JButton restartButton = new JButton("Restart");
+        restartButton.addActionListener(e -> {
+            try {
+                int max = Integer.parseInt(iterationField.getText().trim());
+                double seconds = Double.parseDouble(secondsField.getText().trim());
+                if (max < 1 || seconds <= 0) throw new NumberFormatException();
+                panel.restart(modeBox.getSelectedIndex() == 1, max, seconds);
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(frame, "Invalid input! Enter positive iterations and seconds.");
+            }
+        });
+        controls.add(restartButton);
+        JButton saveButton = new JButton("📂 Save");
+        saveButton.addActionListener(e -> panel.saveImageToFolder());
+        controls.add(saveButton);
+        controls.add(panel.statusLabel);
+
+        frame.add(panel, BorderLayout.CENTER);
+        frame.add(controls, BorderLayout.SOUTH);
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+
+        panel.restart(false, maxIterations, DEFAULT_SECONDS);
+    }
+
+    // Cancels the current render and starts a new one (on the EDT)
+    void restart(boolean anti, int maxIterations, double seconds) {
+        stop();
+        density = new OrbitDensity(anti, xMin, xMax, yMin, yMax, imageWidth, imageHeight, maxIterations);
+        density.start((long) (seconds * 1e9));
+        refreshTimer.start();
+    }
+
+    void stop() {
+        refreshTimer.stop();
+        if (density != null) density.cancel();
+    }
+
+    // Timer tick: redraw from the histogram merged so far; the tick after the samplers finish is the last
+    private void refresh() {
+        OrbitDensity d = density;
+        boolean done = d.isDone();
+        d.snapshot(pixels);
+        statusLabel.setText(d.status());
+        repaint();
+        if (done) refreshTimer.stop();
+    }
+
+    void saveImageToFolder() {
+        OrbitDensity d = density;
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("Title", d.anti ? "Anti-Buddhabrot" : "Buddhabrot");
+        metadata.put("Description", d.status());
+        if (!ImageSaver.save(image, d.anti ? "antibuddhabrot" : "buddhabrot", metadata)) {
+            JOptionPane.showMessageDialog(this, ImageSaver.QUEUE_FULL);
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        g.drawImage(image, (getWidth() - imageWidth) / 2, (getHeight() - imageHeight) / 2, null);
+    }
+}
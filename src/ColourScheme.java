@@ -0,0 +1,57 @@
+import java.awt.*;
+
+/**
+ * Gradients for escaped points, as a function of the (possibly cycled or equalised) iteration count.
+ * Interior points are always black and radius-rejected points rust, see Palette.
+ */
+enum ColourScheme {
+    // The original HSB rainbow
+    CLASSIC("Classic") {
+        @Override
+        int rgb(int n) {
+            return Color.HSBtoRGB(n / 256f, 1, n / (n + 8f));
+        }
+    },
+    FIRE("Fire") {
+        @Override
+        int rgb(int n) {
+            float t = wave(n, 128);
+            return Color.HSBtoRGB(t / 6f, 1 - t * 0.6f, Math.min(1, 0.2f + 1.6f * t));
+        }
+    },
+    OCEAN("Ocean") {
+        @Override
+        int rgb(int n) {
+            float t = wave(n, 96);
+            return Color.HSBtoRGB(0.5f + t / 6f, 1 - t * 0.7f, 0.25f + 0.75f * t);
+        }
+    },
+    GRAYSCALE("Grayscale") {
+        @Override
+        int rgb(int n) {
+            int v = (int) (255 * wave(n, 64));
+            return (v << 16) | (v << 8) | v;
+        }
+    };
+
+    private final String label;
+
+    ColourScheme(String label) {
+        this.label = label;
+    }
+
+    // Colour of an escaped point after n iterations (alpha byte ignored)
+    abstract int rgb(int n);
+
+    // Triangle wave in [0, 1] with the given period, so long iteration bands keep varying
+    private static float wave(int n, int period) {
+        int k = Math.floorMod(n, 2 * period);
+        return (k < period ? k : 2 * period - k) / (float) period;
+    }
+
+    // Shown in the palette combo box
+    @Override
+    public String toString() {
+        return label;
+    }
+}
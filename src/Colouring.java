@@ -0,0 +1,73 @@
+import javax.swing.*;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Colour settings shared by every panel, and the colouring pass.
+ * Frames keep their raw iteration counts (RenderEngine.Job), so changing the scheme, cycling colours
+ * or toggling histogram equalisation only re-runs colouring over those counts, in parallel,
+ * instead of re-iterating the fractal.
+ */
+final class Colouring {
+
+    // Current settings (changed from the control bar on the EDT)
+    static volatile ColourScheme scheme = ColourScheme.CLASSIC;
+    static volatile boolean equalise = false;
+    static volatile int cycleOffset = 0;
+
+    // Colour cycling: shift by CYCLE_STEP every CYCLE_DELAY ms
+    static final int CYCLE_DELAY = 50;
+    static final int CYCLE_STEP = 2;
+    private static final Timer cycleTimer = new Timer(CYCLE_DELAY, e -> {
+        cycleOffset += CYCLE_STEP;
+        changed();
+    });
+
+    // Panels to recolour on change; weak so closed Julia windows can be collected
+    private static final Set<Recolourable> panels = Collections.newSetFromMap(new WeakHashMap<>());
+
+    interface Recolourable {
+        void recolour();
+    }
+
+    private Colouring() {}
+
+    static void register(Recolourable panel) {
+        panels.add(panel);
+    }
+
+    // Palette a new frame starts with (equalisation needs the finished frame, see palette(counts))
+    static Palette palette(int maxIterations) {
+        return Palette.of(scheme, maxIterations, cycleOffset);
+    }
+
+    static Palette palette(int maxIterations, int[] counts) {
+        return equalise
+                ? Palette.equalised(scheme, maxIterations, cycleOffset, counts)
+                : Palette.of(scheme, maxIterations, cycleOffset);
+    }
+
+    /**
+     * Colouring pass: pixels[k] = palette(counts[k]) on all cores.
+     * Entries still RenderEngine.UNRENDERED keep their pixel.
+     */
+    static void apply(int[] counts, int[] pixels, Palette palette) {
+        // Parallel streams run on the common pool, i.e. RenderEngine.POOL
+        IntStream.range(0, counts.length).parallel().forEach(k -> {
+            int n = counts[k];
+            if (n != RenderEngine.UNRENDERED) pixels[k] = palette.rgb(n);
+        });
+    }
+
+    static void setCycling(boolean on) {
+        if (on) cycleTimer.start();
+        else cycleTimer.stop();
+    }
+
+    // Call on the EDT after changing a setting
+    static void changed() {
+        for (Recolourable panel : panels.toArray(new Recolourable[0])) panel.recolour();
+    }
+}
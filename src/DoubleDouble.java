@@ -0,0 +1,56 @@
+import java.math.BigDecimal;
+
+/**
+ * Double-double number: an unevaluated sum hi + lo of two doubles with |lo| <= ulp(hi) / 2,
+ * about 32 significant digits. Error-free transformations (two-sum, and two-product through Math.fma)
+ * carry the rounding error of each operation into lo, which makes it far cheaper than BigDecimal.
+ */
+final class DoubleDouble {
+
+    static final DoubleDouble ZERO = new DoubleDouble(0, 0);
+
+    final double hi, lo;
+
+    private DoubleDouble(double hi, double lo) {
+        this.hi = hi;
+        this.lo = lo;
+    }
+
+    static DoubleDouble of(BigDecimal value) {
+        double hi = value.doubleValue();
+        return new DoubleDouble(hi, value.subtract(new BigDecimal(hi)).doubleValue());
+    }
+
+    DoubleDouble add(DoubleDouble b) {
+        // Two-sum of the high parts, then the low parts folded into the error
+        double s = hi + b.hi;
+        double v = s - hi;
+        double e = (hi - (s - v)) + (b.hi - v);
+        return normalise(s, e + lo + b.lo);
+    }
+
+    DoubleDouble subtract(DoubleDouble b) {
+        return add(new DoubleDouble(-b.hi, -b.lo));
+    }
+
+    DoubleDouble multiply(DoubleDouble b) {
+        // Two-product: fma gives the exact rounding error of hi * b.hi
+        double p = hi * b.hi;
+        double e = Math.fma(hi, b.hi, -p);
+        return normalise(p, e + (hi * b.lo + lo * b.hi));
+    }
+
+    // Exact: scaling by 2 never rounds
+    DoubleDouble twice() {
+        return new DoubleDouble(2 * hi, 2 * lo);
+    }
+
+    double doubleValue() {
+        return hi + lo;
+    }
+
+    private static DoubleDouble normalise(double s, double e) {
+        double hi = s + e;
+        return new DoubleDouble(hi, e - (hi - s));
+    }
+}
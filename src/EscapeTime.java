@@ -0,0 +1,287 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Escape-time kernels shared by the Mandelbrot and Julia panels.
+ * Both return the number of iterations before |z| > 2, capped at maxIterations,
+ * or OUTSIDE_RADIUS when c lies outside the radius-2 disk (See Proof in 1.2).
+ */
+final class EscapeTime {
+
+    // Marker for points rejected before iterating (drawn in the rust fallback colour)
+    static final int OUTSIDE_RADIUS = -1;
+
+    // Bump whenever a change makes the kernels return different counts: TileStore drops tiles of other versions
+    static final int KERNEL_VERSION = 1;
+
+    // Kernel for runs of pixels: SIMD when jdk.incubator.vector is present, scalar otherwise
+    static final Batch BATCH = loadBatch();
+
+    private EscapeTime() {}
+
+    /**
+     * Escape-time kernels over arrays of points; out[k] gets the same count as the scalar kernel for point k.
+     */
+    interface Batch {
+        void mandelbrot(double[] c_a, double[] c_b, int count, int maxIterations, int[] out, LongAdder skipped);
+
+        void julia(double[] z_a, double[] z_b, int count, double c_a, double c_b, int maxIterations, int[] out);
+
+        // Precision.FLOAT tier (Mandelbrot only): same as mandelbrotFloat per point
+        void mandelbrotFloat(float[] c_a, float[] c_b, int count, int maxIterations, int[] out, LongAdder skipped);
+    }
+
+    // One pixel at a time through the scalar kernels
+    static final class ScalarBatch implements Batch {
+        @Override
+        public void mandelbrot(double[] c_a, double[] c_b, int count, int maxIterations, int[] out, LongAdder skipped) {
+            for (int k = 0; k < count; k++) out[k] = EscapeTime.mandelbrot(c_a[k], c_b[k], maxIterations, skipped);
+        }
+
+        @Override
+        public void julia(double[] z_a, double[] z_b, int count, double c_a, double c_b, int maxIterations, int[] out) {
+            for (int k = 0; k < count; k++) out[k] = EscapeTime.julia(z_a[k], z_b[k], c_a, c_b, maxIterations);
+        }
+
+        @Override
+        public void mandelbrotFloat(float[] c_a, float[] c_b, int count, int maxIterations, int[] out, LongAdder skipped) {
+            for (int k = 0; k < count; k++) out[k] = EscapeTime.mandelbrotFloat(c_a[k], c_b[k], maxIterations, skipped);
+        }
+    }
+
+    /**
+     * The vector kernel (source root src-vector) is only compiled and run with --add-modules jdk.incubator.vector,
+     * so it is looked up reflectively and a missing class or module falls back to the scalar kernel.
+     */
+    private static Batch loadBatch() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (Batch) Class.forName("VectorEscapeTime").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.out.println("Vector kernel unavailable, using scalar kernel: " + e);
+            }
+        }
+        return new ScalarBatch();
+    }
+
+    // Mandelbrot: z_0 = 0, c = pixel
+    static int mandelbrot(double c_a, double c_b, int maxIterations) {
+        return mandelbrot(c_a, c_b, maxIterations, null);
+    }
+
+    /**
+     * Mandelbrot kernel with interior shortcuts. Points that provably never escape return
+     * maxIterations early, so the result is the same as running the full loop:
+     * - closed-form test for the main cardioid and the period-2 bulb
+     * - Brent-style periodicity check: the orbit is compared with a snapshot taken at
+     *   power-of-two steps; an exact repeat means the orbit cycles forever
+     * The iterations saved are added to skipped (may be null).
+     */
+    static int mandelbrot(double c_a, double c_b, int maxIterations, LongAdder skipped) {
+
+        // Equation ( (c_a * c_a) + (c_b * c_b) <= 4 ) proof in 1.2
+        if ((c_a * c_a) + (c_b * c_b) > 4) return OUTSIDE_RADIUS;
+
+        if (inCardioidOrBulb(c_a, c_b)) {
+            if (skipped != null) skipped.add(maxIterations);
+            return maxIterations;
+        }
+
+        double z_a = 0, z_b = 0; // z_n = 0 initial
+        int numberOfIterations = 0;
+
+        // Periodicity snapshot, refreshed every `period` iterations (period doubles each time)
+        double old_a = 0, old_b = 0;
+        int period = 1, sinceSnapshot = 0;
+
+        // Equation ( (z_a * z_a) + (z_b * z_b) <= 4 ) proof in 1.4
+        while ((z_a * z_a) + (z_b * z_b) <= 4 && numberOfIterations < maxIterations) {
+            // Equations proof in 1.5
+            double zn_a = (z_a * z_a) - (z_b * z_b) + (c_a);
+            double zn_b = 2 * (z_a * z_b) + (c_b);
+
+            z_a = zn_a;
+            z_b = zn_b;
+            numberOfIterations++;
+
+            if (z_a == old_a && z_b == old_b) {
+                if (skipped != null) skipped.add(maxIterations - numberOfIterations);
+                return maxIterations;
+            }
+            if (++sinceSnapshot == period) {
+                old_a = z_a;
+                old_b = z_b;
+                sinceSnapshot = 0;
+                period <<= 1;
+            }
+        }
+        return numberOfIterations;
+    }
+
+    /**
+     * Main cardioid: q(q + (x - 1/4)) <= y^2 / 4 with q = (x - 1/4)^2 + y^2
+     * Period-2 bulb: (x + 1)^2 + y^2 <= 1/16
+     */
+    static boolean inCardioidOrBulb(double x, double y) {
+        double y2 = y * y;
+        double xq = x - 0.25;
+        double q = xq * xq + y2;
+        if (q * (q + xq) <= 0.25 * y2) return true;
+        return (x + 1) * (x + 1) + y2 <= 0.0625;
+    }
+
+    // Julia: z_0 = pixel, c fixed
+    static int julia(double z_a, double z_b, double c_a, double c_b, int maxIterations) {
+
+        // Equation ( (c_a * c_a) + (c_b * c_b) <= 4 ) proof in 1.2
+        if ((c_a * c_a) + (c_b * c_b) > 4) return OUTSIDE_RADIUS;
+
+        int numberOfIterations = 0;
+
+        // Escape-time iteration: stop if |z| > 2 (proof in 1.3) or max iterations reached
+        // Equation ( (z_a * z_a) + (z_b * z_b) <= 4 ) proof in 1.4
+        while ((z_a * z_a) + (z_b * z_b) <= 4 && numberOfIterations < maxIterations) {
+            //Equations Proof in 1.5
+            double zn_a = (z_a * z_a) - (z_b * z_b) + (c_a);  // Real part
+            double zn_b = 2 * (z_a * z_b) + (c_b);            // Imaginary part
+
+            z_a = zn_a;
+            z_b = zn_b;
+            numberOfIterations++;
+        }
+        return numberOfIterations;
+    }
+
+    /**
+     * Precision.FLOAT tier of mandelbrot(): the same loop and shortcuts in float arithmetic.
+     * Counts can differ from the double kernel near the boundary, where rounding changes the escape step.
+     */
+    static int mandelbrotFloat(float c_a, float c_b, int maxIterations, LongAdder skipped) {
+
+        // Equation ( (c_a * c_a) + (c_b * c_b) <= 4 ) proof in 1.2
+        if ((c_a * c_a) + (c_b * c_b) > 4) return OUTSIDE_RADIUS;
+
+        if (inCardioidOrBulb(c_a, c_b)) {
+            if (skipped != null) skipped.add(maxIterations);
+            return maxIterations;
+        }
+
+        float z_a = 0, z_b = 0;
+        int numberOfIterations = 0;
+        float old_a = 0, old_b = 0;
+        int period = 1, sinceSnapshot = 0;
+
+        // Equation ( (z_a * z_a) + (z_b * z_b) <= 4 ) proof in 1.4
+        while ((z_a * z_a) + (z_b * z_b) <= 4 && numberOfIterations < maxIterations) {
+            // Equations proof in 1.5
+            float zn_a = (z_a * z_a) - (z_b * z_b) + (c_a);
+            float zn_b = 2 * (z_a * z_b) + (c_b);
+
+            z_a = zn_a;
+            z_b = zn_b;
+            numberOfIterations++;
+
+            if (z_a == old_a && z_b == old_b) {
+                if (skipped != null) skipped.add(maxIterations - numberOfIterations);
+                return maxIterations;
+            }
+            if (++sinceSnapshot == period) {
+                old_a = z_a;
+                old_b = z_b;
+                sinceSnapshot = 0;
+                period <<= 1;
+            }
+        }
+        return numberOfIterations;
+    }
+
+    // Escaped orbits keep iterating to this |z|^2 before the distance is estimated; more room, better estimate
+    static final double DISTANCE_BAILOUT = 1e10;
+    static final int MAX_EXTRA_ITERATIONS = 64;
+
+    /**
+     * Mandelbrot kernel with distance estimation: returns the same count as mandelbrot() and stores in distance[0]
+     * the estimated distance from c to the set, 0.5 |z| ln|z| / |dz/dc| with dz/dc tracked as dz' = 2 z dz + 1.
+     * Points inside the set get distance 0.
+     */
+    static int mandelbrotDistance(double c_a, double c_b, int maxIterations, double[] distance) {
+
+        // Equation ( (c_a * c_a) + (c_b * c_b) <= 4 ) proof in 1.2
+        if ((c_a * c_a) + (c_b * c_b) > 4) {
+            distance[0] = Math.hypot(c_a, c_b) - 2; // the set lies in the radius-2 disk
+            return OUTSIDE_RADIUS;
+        }
+        if (inCardioidOrBulb(c_a, c_b)) {
+            distance[0] = 0;
+            return maxIterations;
+        }
+        return orbitDistance(0, 0, 0, 0, c_a, c_b, false, maxIterations, distance);
+    }
+
+    /**
+     * Julia kernel with distance estimation: same count as julia(), and distance[0] from z_0 to the set,
+     * tracking dz/dz_0 as dz' = 2 z dz starting from 1.
+     */
+    static int juliaDistance(double z_a, double z_b, double c_a, double c_b, int maxIterations, double[] distance) {
+
+        // Equation ( (c_a * c_a) + (c_b * c_b) <= 4 ) proof in 1.2
+        if ((c_a * c_a) + (c_b * c_b) > 4) {
+            distance[0] = Double.NaN;
+            return OUTSIDE_RADIUS;
+        }
+        return orbitDistance(z_a, z_b, 1, 0, c_a, c_b, true, maxIterations, distance);
+    }
+
+    // Shared loop: escape-time count with the |z| > 2 test, then a few extra iterations out to DISTANCE_BAILOUT
+    private static int orbitDistance(double z_a, double z_b, double dz_a, double dz_b, double c_a, double c_b,
+                                     boolean julia, int maxIterations, double[] distance) {
+        int numberOfIterations = 0;
+        int count = -1; // escape-time count, once |z| > 2
+
+        // Periodicity snapshot as in mandelbrot(): an exact repeat means the orbit never escapes
+        double old_a = z_a, old_b = z_b;
+        int period = 1, sinceSnapshot = 0;
+
+        for (; ; numberOfIterations++) {
+            double r2 = (z_a * z_a) + (z_b * z_b);
+            if (count < 0) {
+                // Equation ( (z_a * z_a) + (z_b * z_b) <= 4 ) proof in 1.4
+                if (r2 > 4) count = numberOfIterations;
+                else if (numberOfIterations == maxIterations) {
+                    distance[0] = 0;
+                    return maxIterations;
+                }
+            }
+            // Escaped orbits grow doubly exponentially, so only a few extra iterations are needed
+            if (count >= 0 && (r2 > DISTANCE_BAILOUT || numberOfIterations - count == MAX_EXTRA_ITERATIONS)) break;
+
+            // dz' = 2 z dz (+ 1 for Mandelbrot), before z moves on
+            double dzn_a = 2 * ((z_a * dz_a) - (z_b * dz_b)) + (julia ? 0 : 1);
+            double dzn_b = 2 * ((z_a * dz_b) + (z_b * dz_a));
+            dz_a = dzn_a;
+            dz_b = dzn_b;
+
+            // Equations proof in 1.5
+            double zn_a = (z_a * z_a) - (z_b * z_b) + (c_a);
+            double zn_b = 2 * (z_a * z_b) + (c_b);
+            z_a = zn_a;
+            z_b = zn_b;
+
+            if (count < 0) {
+                if (z_a == old_a && z_b == old_b) {
+                    distance[0] = 0;
+                    return maxIterations;
+                }
+                if (++sinceSnapshot == period) {
+                    old_a = z_a;
+                    old_b = z_b;
+                    sinceSnapshot = 0;
+                    period <<= 1;
+                }
+            }
+        }
+        double r = Math.hypot(z_a, z_b);
+        double dr = Math.hypot(dz_a, dz_b);
+        distance[0] = dr == 0 ? Double.NaN : 0.5 * r * Math.log(r) / dr;
+        return count;
+    }
+}
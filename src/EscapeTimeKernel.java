@@ -0,0 +1,143 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mandelbrot or Julia kernel over a pixel grid mapped onto [xMin, xMax] × [yMin, yMax],
+ * or onto a fixed lattice (originI + i) * stepX, (originJ + j) * stepY used by the TileCache.
+ * Single pixels go through the scalar EscapeTime kernels; column runs go through
+ * EscapeTime.BATCH, which is SIMD-vectorised when the Vector API is available.
+ * Subpixel samples with a distance request go through the distance-estimating kernels.
+ * Precision.FLOAT Mandelbrot kernels round each pixel's coordinates to float and iterate in float;
+ * distance estimates, and Julia kernels, stay in double.
+ */
+final class EscapeTimeKernel implements PixelKernel, SubpixelKernel {
+
+    private final boolean julia;
+    private final double xMin, xMax, yMin, yMax;
+    private final int width, height;
+    private final double c_a, c_b;    // Julia constant (unused for Mandelbrot)
+    private final int maxIterations;
+    private final LongAdder skipped;  // may be null
+    private final Precision precision; // FLOAT or DOUBLE
+
+    // Lattice mapping (lattice == true): exact per-pixel coordinates shared by every frame at one zoom level
+    private final boolean lattice;
+    private final double stepX, stepY;
+    private final long originI, originJ;
+
+    private EscapeTimeKernel(boolean julia, double xMin, double xMax, double yMin, double yMax,
+                             int width, int height, double c_a, double c_b, int maxIterations, LongAdder skipped,
+                             Precision precision) {
+        this(julia, xMin, xMax, yMin, yMax, width, height, c_a, c_b, maxIterations, skipped, precision, false, 0, 0, 0, 0);
+    }
+
+    private EscapeTimeKernel(boolean julia, double xMin, double xMax, double yMin, double yMax,
+                             int width, int height, double c_a, double c_b, int maxIterations, LongAdder skipped,
+                             Precision precision, boolean lattice, double stepX, double stepY, long originI, long originJ) {
+        if (precision != Precision.FLOAT && precision != Precision.DOUBLE) {
+            throw new IllegalArgumentException("Escape-time kernels run in float or double, not " + precision);
+        }
+        // Julia in float drifts too far from double (see Precision.FLOAT_SPACING), and c would be rounded too
+        this.precision = julia ? Precision.DOUBLE : precision;
+        this.lattice = lattice;
+        this.stepX = stepX;
+        this.stepY = stepY;
+        this.originI = originI;
+        this.originJ = originJ;
+        this.julia = julia;
+        this.xMin = xMin;
+        this.xMax = xMax;
+        this.yMin = yMin;
+        this.yMax = yMax;
+        this.width = width;
+        this.height = height;
+        this.c_a = c_a;
+        this.c_b = c_b;
+        this.maxIterations = maxIterations;
+        this.skipped = skipped;
+    }
+
+    static EscapeTimeKernel mandelbrot(double xMin, double xMax, double yMin, double yMax,
+                                       int width, int height, int maxIterations, LongAdder skipped, Precision precision) {
+        return new EscapeTimeKernel(false, xMin, xMax, yMin, yMax, width, height, 0, 0, maxIterations, skipped, precision);
+    }
+
+    static EscapeTimeKernel julia(double xMin, double xMax, double yMin, double yMax,
+                                  int width, int height, double c_a, double c_b, int maxIterations, Precision precision) {
+        return new EscapeTimeKernel(true, xMin, xMax, yMin, yMax, width, height, c_a, c_b, maxIterations, null, precision);
+    }
+
+    static EscapeTimeKernel lattice(boolean julia, double c_a, double c_b, double stepX, double stepY,
+                                    long originI, long originJ, int maxIterations, LongAdder skipped, Precision precision) {
+        return new EscapeTimeKernel(julia, 0, 0, 0, 0, 1, 1, c_a, c_b, maxIterations, skipped, precision,
+                true, stepX, stepY, originI, originJ);
+    }
+
+    // Convert pixel (i,j) into complex number (a + b i)
+    // Proof in 2.1
+    private double real(double i) {
+        if (lattice) return (originI + i) * stepX;
+        return xMin + (i / width) * (xMax - xMin);
+    }
+
+    private double imaginary(double j) {
+        if (lattice) return (originJ + j) * stepY;
+        return yMin + (j / height) * (yMax - yMin);
+    }
+
+    // Size of one pixel in the complex plane (the larger side when pixels are not square)
+    private double pixelSpacing() {
+        if (lattice) return Math.max(stepX, stepY);
+        return Math.max((xMax - xMin) / width, (yMax - yMin) / height);
+    }
+
+    @Override
+    public Precision precision() {
+        return precision;
+    }
+
+    @Override
+    public int iterations(int i, int j) {
+        return sample(i, j, null);
+    }
+
+    @Override
+    public int sample(double x, double y, double[] distance) {
+        if (distance == null && precision == Precision.FLOAT) {
+            return EscapeTime.mandelbrotFloat((float) real(x), (float) imaginary(y), maxIterations, skipped);
+        }
+        if (distance == null) {
+            return julia
+                    ? EscapeTime.julia(real(x), imaginary(y), c_a, c_b, maxIterations)
+                    : EscapeTime.mandelbrot(real(x), imaginary(y), maxIterations, skipped);
+        }
+        int n = julia
+                ? EscapeTime.juliaDistance(real(x), imaginary(y), c_a, c_b, maxIterations, distance)
+                : EscapeTime.mandelbrotDistance(real(x), imaginary(y), maxIterations, distance);
+        distance[0] /= pixelSpacing();
+        return n;
+    }
+
+    @Override
+    public void iterations(int i, int j, int count, int[] out) {
+        if (precision == Precision.FLOAT) {
+            float[] re = new float[count];
+            float[] im = new float[count];
+            float a = (float) real(i);
+            for (int k = 0; k < count; k++) {
+                re[k] = a;
+                im[k] = (float) imaginary(j + k);
+            }
+            EscapeTime.BATCH.mandelbrotFloat(re, im, count, maxIterations, out, skipped);
+            return;
+        }
+        double[] re = new double[count];
+        double[] im = new double[count];
+        double a = real(i);
+        for (int k = 0; k < count; k++) {
+            re[k] = a;
+            im[k] = imaginary(j + k);
+        }
+        if (julia) EscapeTime.BATCH.julia(re, im, count, c_a, c_b, maxIterations, out);
+        else EscapeTime.BATCH.mandelbrot(re, im, count, maxIterations, out, skipped);
+    }
+}
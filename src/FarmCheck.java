@@ -0,0 +1,68 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Self-check that the render farm gives the same images as --batch, runnable headless:
+ *
+ *   java -Djava.awt.headless=true FarmCheck
+ *
+ * Renders each case with FractalRenderer and on a RenderFarm with WORKERS local worker JVMs, then compares
+ * the PNGs pixel by pixel. Both colour the same counts with the same palette, so any difference is a kernel
+ * that does not match. Exits with status 1 if any pixel differs.
+ */
+final class FarmCheck {
+
+    static final int WORKERS = 2;
+
+    // --batch lines: plain window, lattice view as saved from a cached frame, Julia, and a perturbation view
+    private static final String[] CASES = {
+            "mandelbrot -0.75 -0.74 0.1 0.11 800 800 2000",
+            "mandelbrot -0.7512347390624999 -0.7412401390625 0.10123337164508 0.10873677164348 640 480 2000 lattice",
+            "julia -0.7 0.27015 -2.5 2.5 -1.40625 1.40625 640 360 1000",
+            "mandelbrot -0.74364388703731 -0.74364388703699 0.13182590420519 0.13182590420543 320 240 3000",
+    };
+
+    private FarmCheck() {}
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<String> lines = new ArrayList<>();
+        for (String line : CASES) lines.add(line);
+        List<FractalView> views = BatchRender.parse(lines);
+
+        File dir = Files.createTempDirectory("farmcheck").toFile();
+        List<File> files = new ArrayList<>();
+        for (int n = 0; n < views.size(); n++) files.add(new File(dir, "view" + (n + 1) + ".png"));
+        RenderFarm farm = new RenderFarm(0);
+        try {
+            farm.startLocalWorkers(WORKERS);
+            farm.render(views, files);
+        } finally {
+            farm.close();
+        }
+
+        boolean ok = true;
+        System.out.printf("%-100s %10s%n", "case", "differing");
+        for (int n = 0; n < views.size(); n++) {
+            BufferedImage batch = FractalRenderer.render(views.get(n));
+            BufferedImage farmed = ImageIO.read(files.get(n));
+            int differing = 0;
+            for (int y = 0; y < batch.getHeight(); y++) {
+                for (int x = 0; x < batch.getWidth(); x++) {
+                    if (batch.getRGB(x, y) != farmed.getRGB(x, y)) differing++;
+                }
+            }
+            System.out.printf("%-100s %10d  %s%n", CASES[n], differing, differing == 0 ? "ok" : "FAIL");
+            ok &= differing == 0;
+            files.get(n).delete();
+        }
+        dir.delete();
+
+        System.out.println(ok ? "Farm and batch images are identical" : "Farm and batch images differ");
+        System.exit(ok ? 0 : 1);
+    }
+}
@@ -0,0 +1,101 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Render farm worker: connects to a RenderFarm coordinator and renders the tiles it is sent until the
+ * coordinator closes the connection.
+ *
+ *   java -Djava.awt.headless=true Main --worker host:port
+ *
+ * The worker asks for a window of twice its core count, so the next tiles are already waiting while
+ * the current ones render; the tiles run on the common pool and results go back as they finish.
+ * Kernels come from FractalRenderer.kernel, so the farm's images match --batch pixel for pixel, and are
+ * built once per view (a deep view's reference orbit is computed once, not per tile).
+ */
+final class FarmWorker {
+
+    // Kernels of the views with tiles in flight, by their --batch line; only touched by the read loop
+    static final int KERNELS_KEPT = 2 * RenderFarm.FRAMES_IN_FLIGHT;
+
+    private FarmWorker() {}
+
+    static void run(String[] args) throws IOException {
+        if (args.length != 1 || args[0].lastIndexOf(':') < 0) {
+            System.out.println("Usage: java -Djava.awt.headless=true Main --worker <host:port>");
+            System.exit(2);
+        }
+        int colon = args[0].lastIndexOf(':');
+        work(args[0].substring(0, colon), Integer.parseInt(args[0].substring(colon + 1)));
+    }
+
+    static void work(String host, int port) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(RenderFarm.PROTOCOL_MAGIC);
+            out.writeInt(2 * Runtime.getRuntime().availableProcessors());
+            out.flush();
+
+            Map<String, PixelKernel> kernels = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PixelKernel> eldest) {
+                    return size() > KERNELS_KEPT;
+                }
+            };
+            while (true) {
+                int id;
+                try {
+                    id = in.readInt();
+                } catch (EOFException e) {
+                    return; // coordinator finished
+                }
+                FractalView view = readView(in);
+                int x = in.readInt(), y = in.readInt(), w = in.readInt(), h = in.readInt();
+                PixelKernel kernel = kernels.computeIfAbsent(BatchRender.format(view), line -> FractalRenderer.kernel(view));
+                RenderEngine.POOL.execute(() -> {
+                    byte[] data = RenderFarm.encodeCounts(render(kernel, x, y, w, h));
+                    try {
+                        synchronized (out) {
+                            out.writeInt(id);
+                            out.writeInt(data.length);
+                            out.write(data);
+                            out.flush();
+                        }
+                    } catch (IOException e) {
+                        // Connection gone; the coordinator requeues the tile and the read loop ends
+                    }
+                });
+            }
+        }
+    }
+
+    private static FractalView readView(DataInputStream in) throws IOException {
+        boolean julia = in.readBoolean(), lattice = in.readBoolean();
+        double c_a = in.readDouble(), c_b = in.readDouble();
+        double xMin = in.readDouble(), xMax = in.readDouble(), yMin = in.readDouble(), yMax = in.readDouble();
+        int width = in.readInt(), height = in.readInt(), maxIterations = in.readInt();
+        FractalView view = julia
+                ? FractalView.julia(c_a, c_b, xMin, xMax, yMin, yMax, width, height, maxIterations)
+                : FractalView.mandelbrot(xMin, xMax, yMin, yMax, width, height, maxIterations);
+        return lattice ? view.onLattice() : view;
+    }
+
+    // Counts of tile (x, y, w, h) in kernel coordinates, column by column
+    static int[] render(PixelKernel kernel, int x, int y, int w, int h) {
+        int[] counts = new int[w * h];
+        int[] column = new int[h];
+        for (int i = 0; i < w; i++) {
+            kernel.iterations(x + i, y, h, column);
+            System.arraycopy(column, 0, counts, i * h, h);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,32 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Headless rendering API: turns a FractalView into an image without touching Swing or the screen,
+ * so it also runs with -Djava.awt.headless=true (render servers, batch jobs, benchmarks).
+ */
+final class FractalRenderer {
+
+    private FractalRenderer() {}
+
+    // Renders view on all cores, blocking until done (boundary refinement included when enabled)
+    static BufferedImage render(FractalView view) {
+        BufferedImage img = new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_RGB);
+        RenderEngine.Job job = RenderEngine.render(img, kernel(view), view.maxIterations);
+        if (Colouring.equalise) job.recolour(); // equalisation needs the whole frame's histogram
+        if (BoundaryRefinement.enabled()) job.refine(BoundaryRefinement.refine(job));
+        return img;
+    }
+
+    // Kernel for view: views saved from a cached frame (marked lattice) get the lattice kernel they were drawn with
+    static PixelKernel kernel(FractalView view) {
+        if (!view.lattice || view.precision().isDeep()) return view.kernel();
+        return TileCache.Grid.of(view).kernel(null);
+    }
+
+    static void renderToPng(FractalView view, File file) throws IOException {
+        ImageIO.write(render(view), "png", file);
+    }
+}
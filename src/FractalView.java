@@ -0,0 +1,83 @@
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What to render, independent of Swing: fractal (Mandelbrot, or Julia with constant c),
+ * complex-plane window [xMin, xMax] × [yMin, yMax], output resolution and iteration limit.
+ */
+final class FractalView {
+
+    final boolean julia;
+    final double c_a, c_b; // Julia constant (0 for Mandelbrot)
+    final double xMin, xMax, yMin, yMax;
+    final int width, height;
+    final int maxIterations;
+    // Drawn on the TileCache lattice of its zoom level (saved from a cached frame), not by the window's own mapping
+    final boolean lattice;
+
+    private FractalView(boolean julia, double c_a, double c_b, double xMin, double xMax, double yMin, double yMax,
+                        int width, int height, int maxIterations, boolean lattice) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Resolution must be positive: " + width + "x" + height);
+        if (maxIterations <= 0) throw new IllegalArgumentException("maxIterations must be positive: " + maxIterations);
+        this.julia = julia;
+        this.c_a = c_a;
+        this.c_b = c_b;
+        this.xMin = xMin;
+        this.xMax = xMax;
+        this.yMin = yMin;
+        this.yMax = yMax;
+        this.width = width;
+        this.height = height;
+        this.maxIterations = maxIterations;
+        this.lattice = lattice;
+    }
+
+    static FractalView mandelbrot(double xMin, double xMax, double yMin, double yMax, int width, int height, int maxIterations) {
+        return new FractalView(false, 0, 0, xMin, xMax, yMin, yMax, width, height, maxIterations, false);
+    }
+
+    static FractalView julia(double c_a, double c_b, double xMin, double xMax, double yMin, double yMax,
+                             int width, int height, int maxIterations) {
+        return new FractalView(true, c_a, c_b, xMin, xMax, yMin, yMax, width, height, maxIterations, false);
+    }
+
+    // The same window, marked as rendered on its TileCache lattice
+    FractalView onLattice() {
+        return new FractalView(julia, c_a, c_b, xMin, xMax, yMin, yMax, width, height, maxIterations, true);
+    }
+
+    // Size of one pixel in the complex plane (the larger side when pixels are not square)
+    double pixelSpacing() {
+        return Math.max((xMax - xMin) / width, (yMax - yMin) / height);
+    }
+
+    // Arithmetic tier for this view; Julia always runs in double (see Precision.FLOAT, and it has no perturbation kernel)
+    Precision precision() {
+        return julia ? Precision.DOUBLE : Precision.select(pixelSpacing());
+    }
+
+    PixelKernel kernel() {
+        return kernel(null);
+    }
+
+    // skipped (may be null) collects iterations saved by the Mandelbrot interior shortcuts
+    PixelKernel kernel(LongAdder skipped) {
+        Precision precision = precision();
+        if (precision.isDeep()) {
+            // Perturbation around the window centre; the offsets keep pixels apart where the bounds alone cannot
+            Perturbation deep = new Perturbation(new BigDecimal((xMin + xMax) / 2), new BigDecimal((yMin + yMax) / 2),
+                    Math.hypot(xMax - xMin, yMax - yMin) / 2, maxIterations, precision);
+            return deep.kernel(width, height, xMax - xMin, yMax - yMin);
+        }
+        return julia
+                ? EscapeTimeKernel.julia(xMin, xMax, yMin, yMax, width, height, c_a, c_b, maxIterations, precision)
+                : EscapeTimeKernel.mandelbrot(xMin, xMax, yMin, yMax, width, height, maxIterations, skipped, precision);
+    }
+
+    @Override
+    public String toString() {
+        return (julia ? "julia " + c_a + " " + c_b : "mandelbrot")
+                + " [" + xMin + ", " + xMax + "] x [" + yMin + ", " + yMax + "] "
+                + width + "x" + height + " @" + maxIterations + (lattice ? " lattice" : "");
+    }
+}
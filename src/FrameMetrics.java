@@ -0,0 +1,95 @@
+import java.awt.*;
+
+/**
+ * Per-frame instrumentation: render time, iterations, throughput, interior share and tile cache use.
+ * Built from a finished RenderEngine job; panels keep the latest one (lastMetrics) and can draw it as an overlay.
+ */
+final class FrameMetrics {
+
+    // Draw the overlay on the panels (toggled from the control bar)
+    static volatile boolean overlay = false;
+
+    final long renderNanos;
+    final int width, height;
+    final int maxIterations;
+    final long totalIterations;    // sum of escape-time counts (interior points count maxIterations)
+    final long skippedIterations;  // part of totalIterations avoided by interior shortcuts
+    final double interiorShare;    // pixels that reached maxIterations
+    final long cacheHits, cacheMisses;
+    final long storeHits;          // part of cacheHits read from the on-disk tile store
+    final long filledTiles;        // interior tiles a seeded zoom filled without iterating
+    final Precision precision;     // arithmetic tier of the kernel
+
+    private FrameMetrics(long renderNanos, int width, int height, int maxIterations, long totalIterations,
+                         long skippedIterations, double interiorShare, long cacheHits, long cacheMisses, long storeHits,
+                         long filledTiles, Precision precision) {
+        this.renderNanos = renderNanos;
+        this.width = width;
+        this.height = height;
+        this.maxIterations = maxIterations;
+        this.totalIterations = totalIterations;
+        this.skippedIterations = skippedIterations;
+        this.interiorShare = interiorShare;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.storeHits = storeHits;
+        this.filledTiles = filledTiles;
+        this.precision = precision;
+    }
+
+    static FrameMetrics of(RenderEngine.Job job, long skippedIterations) {
+        long total = 0, interior = 0, rendered = 0;
+        for (int n : job.counts()) {
+            if (n == RenderEngine.UNRENDERED) continue;
+            rendered++;
+            if (n > 0) total += n;
+            if (n == job.maxIterations) interior++;
+        }
+        return new FrameMetrics(job.elapsedNanos(), job.target.getWidth(), job.target.getHeight(), job.maxIterations,
+                total, skippedIterations, rendered == 0 ? 0 : interior / (double) rendered,
+                job.cacheHits(), job.cacheMisses(), job.storeHits(), job.filledTiles(), job.kernel.precision());
+    }
+
+    double renderMillis() {
+        return renderNanos / 1e6;
+    }
+
+    double pixelsPerSecond() {
+        return (double) width * height / (renderNanos / 1e9);
+    }
+
+    // Iterations actually performed per second
+    double iterationsPerSecond() {
+        return (totalIterations - skippedIterations) / (renderNanos / 1e9);
+    }
+
+    String[] lines() {
+        return new String[]{
+                String.format("Frame: %.1f ms, %dx%d, max %d iterations, %s", renderMillis(), width, height, maxIterations, precision),
+                String.format("Iterations: %,d (%,d skipped)", totalIterations, skippedIterations),
+                String.format("Throughput: %.2f Mpixels/s, %.1f Miter/s", pixelsPerSecond() / 1e6, iterationsPerSecond() / 1e6),
+                String.format("Interior: %.1f %%", interiorShare * 100),
+                String.format("Tile cache: %d hits (%d from disk), %d misses", cacheHits, storeHits, cacheMisses),
+                String.format("Zoom reuse: %d interior tiles filled", filledTiles),
+        };
+    }
+
+    // Text box in the top-left corner of the panel
+    void draw(Graphics g) {
+        String[] lines = lines();
+        FontMetrics fm = g.getFontMetrics();
+        int w = 0;
+        for (String line : lines) w = Math.max(w, fm.stringWidth(line));
+        int lineHeight = fm.getHeight();
+
+        g.setColor(new Color(0, 0, 0, 160));
+        g.fillRect(8, 8, w + 16, lineHeight * lines.length + 12);
+        g.setColor(Color.WHITE);
+        for (int k = 0; k < lines.length; k++) g.drawString(lines[k], 16, 14 + fm.getAscent() + k * lineHeight);
+    }
+
+    @Override
+    public String toString() {
+        return String.join("; ", lines());
+    }
+}
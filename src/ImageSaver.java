@@ -0,0 +1,156 @@
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOInvalidTreeException;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background PNG saving for the Save buttons.
+ * - The frame is snapshotted on the caller's thread and encoded on SAVE_THREADS workers, so the EDT never waits on disk
+ * - At most QUEUE_CAPACITY saves wait; further clicks are refused (save returns false, the panel says so)
+ *   instead of piling up frames
+ * - Names are prefix<n>.png, claimed with an atomic create so no existing file is ever overwritten;
+ *   a claimed file whose write fails is deleted again and the failure shown in a dialog
+ * - The view parameters go into tEXt chunks (View is a --batch line) so the image can be re-rendered exactly
+ */
+final class ImageSaver {
+
+    // Where images go: -Dmandelbrot.saveDir, else ~/Desktop when it exists, else the home directory
+    static volatile File outputDirectory = defaultDirectory();
+
+    static final int SAVE_THREADS = 2;
+    static final int QUEUE_CAPACITY = 4;
+    // For the panels to show when save returns false
+    static final String QUEUE_FULL = "Still saving earlier images, this one was not saved. Try again in a moment.";
+
+    // PNG compression quality: 0.75 is about deflate level 2, roughly 3x faster than the default for ~10% larger files
+    static final float COMPRESSION_QUALITY = 0.75f;
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(SAVE_THREADS, SAVE_THREADS,
+            30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                Thread t = new Thread(r, "image-saver");
+                t.setDaemon(true);
+                return t;
+            });
+
+    // Next number to try per prefix, so repeated saves do not rescan from 1
+    private static final Map<String, AtomicInteger> NEXT_NUMBER = new ConcurrentHashMap<>();
+
+    private ImageSaver() {}
+
+    private static File defaultDirectory() {
+        String configured = System.getProperty("mandelbrot.saveDir");
+        if (configured != null) return new File(configured);
+        File desktop = new File(System.getProperty("user.home"), "Desktop");
+        return desktop.isDirectory() ? desktop : new File(System.getProperty("user.home"));
+    }
+
+    /**
+     * Queues img (TYPE_INT_RGB) for saving as outputDirectory/prefix<n>.png with metadata as text chunks.
+     * Returns false when the queue is full and the image was not saved.
+     */
+    static boolean save(BufferedImage img, String prefix, Map<String, String> metadata) {
+        BufferedImage snapshot = copy(img);
+        File dir = outputDirectory;
+        try {
+            EXECUTOR.execute(() -> {
+                File file = null;
+                try {
+                    long start = System.nanoTime();
+                    file = claim(dir, prefix);
+                    write(snapshot, file, metadata);
+                    System.out.printf("Saved %s (%.0f ms)%n", file, (System.nanoTime() - start) / 1e6);
+                } catch (IOException | RuntimeException e) {
+                    // An empty claimed file would only push later saves to the next number
+                    if (file != null && !file.delete()) file.deleteOnExit();
+                    reportFailure(e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            System.out.println("Save queue full, image not saved");
+            return false;
+        }
+    }
+
+    private static void reportFailure(Exception e) {
+        System.out.println("Save failed: " + e);
+        if (GraphicsEnvironment.isHeadless()) return;
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, "Save failed: " + e.getMessage(),
+                "Save image", JOptionPane.ERROR_MESSAGE));
+    }
+
+    // Tiles may still be landing in img; a raster copy is a consistent frame and costs a few milliseconds
+    private static BufferedImage copy(BufferedImage img) {
+        BufferedImage snapshot = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_RGB);
+        int[] src = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        int[] dst = ((DataBufferInt) snapshot.getRaster().getDataBuffer()).getData();
+        System.arraycopy(src, 0, dst, 0, dst.length);
+        return snapshot;
+    }
+
+    // First free prefix<n>.png; createFile fails if another save (or another program) got there first
+    private static File claim(File dir, String prefix) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create directory " + dir);
+        AtomicInteger next = NEXT_NUMBER.computeIfAbsent(prefix, p -> new AtomicInteger(1));
+        while (true) {
+            File file = new File(dir, prefix + next.getAndIncrement() + ".png");
+            try {
+                Files.createFile(file.toPath());
+                return file;
+            } catch (FileAlreadyExistsException e) {
+                // taken, try the next number
+            }
+        }
+    }
+
+    static void write(BufferedImage img, File file, Map<String, String> metadata) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(COMPRESSION_QUALITY);
+
+            IIOMetadata meta = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(img), param);
+            addText(meta, metadata);
+
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(img, null, meta), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static void addText(IIOMetadata meta, Map<String, String> metadata) throws IIOInvalidTreeException {
+        String format = "javax_imageio_png_1.0";
+        IIOMetadataNode text = new IIOMetadataNode("tEXt");
+        for (Map.Entry<String, String> e : metadata.entrySet()) {
+            IIOMetadataNode entry = new IIOMetadataNode("tEXtEntry");
+            entry.setAttribute("keyword", e.getKey());
+            entry.setAttribute("value", e.getValue());
+            text.appendChild(entry);
+        }
+        IIOMetadataNode root = new IIOMetadataNode(format);
+        root.appendChild(text);
+        meta.mergeTree(format, root);
+    }
+}
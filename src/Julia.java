@@ -1,10 +1,12 @@
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.event.MouseInputListener;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Julia Set Explorer
@@ -15,15 +17,15 @@ import java.io.File;
  * - Select Iterations
  */
 
-public class Julia extends JPanel implements MouseInputListener {
+public class Julia extends JPanel implements MouseInputListener, Colouring.Recolourable {
 
     JTextField juliaZoomField;
     JTextField juliaZoomLevelField;
     JTextField juliaMaxIterationField;
 
-    // Screen dimensions taken from system display
-    final static int SCREEN_HEIGHT;
-    final static int SCREEN_WIDTH;
+    // Size of the frame on screen: the panel's size when it was rendered (0 before the panel is laid out)
+    int frameWidth;
+    int frameHeight;
 
     // Julia set constants (fixed complex number c = c_a + c_b*i)
     final double c_a;
@@ -41,16 +43,12 @@ public class Julia extends JPanel implements MouseInputListener {
     double yMin = -2.5;   // Julia set also lies roughly in [-2,2] + i[-2,2] but we have taken 2.5
     double yMax =  2.5;  // See Proof in 1.1
 
-    // The image buffer where we render pixels
-    BufferedImage img;
-    static int imageStoreNumber=1;
+    // Front/back buffers the Julia set is rendered into, at the panel's size
+    final RenderSurface surface = new RenderSurface(this);
 
-    // Static initializer: detect screen resolution
-    static {
-        Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
-        SCREEN_WIDTH = screen.width;
-        SCREEN_HEIGHT = screen.height;
-    }
+    // Re-render once a resize has settled instead of on every intermediate size
+    static final int RESIZE_DELAY = 100;
+    final Timer resizeTimer = new Timer(RESIZE_DELAY, e -> generate());
 
 
     // Constructor when Julia set is directly given a complex constant
@@ -62,98 +60,177 @@ public class Julia extends JPanel implements MouseInputListener {
 
         c_a = real;
         c_b = imaginary;
-        img=generate();
+        generate();
 
+        previewTimer.setRepeats(false);
+        resizeTimer.setRepeats(false);
+        Colouring.register(this);
         addMouseListener(this);
         addMouseMotionListener(this);
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                if (surface.front() == null) generate(); // first layout: render right away
+                else resizeTimer.restart();
+            }
+        });
     }
 
-    // Generate Julia set image
-    BufferedImage generate() {
-        BufferedImage temp = new BufferedImage(SCREEN_WIDTH, SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
-        maxIterations=Integer.parseInt(juliaMaxIterationField.getText());
-
-        for (int i = 0; i < SCREEN_WIDTH; i++) {
-            for (int j = 0; j < SCREEN_HEIGHT; j++) {
-                
-
-                // Convert pixel to complex plane coordinate (z)
-                // Proof in 2.1
-                double z_a = xMin + (i / (double) SCREEN_WIDTH) * (xMax - xMin);
-                double z_b = yMin + (j / (double) SCREEN_HEIGHT) * (yMax - yMin);
-
-                int numberOfIterations = 0;
-
-                // Equation ( (c_a * c_a) + (c_b * c_b) <= 4 ) proof in 1.2
-                if ((c_a * c_a) + (c_b * c_b) > 4) {
-                    Color rust = new Color(28, 1,0); // Reddish-brown fallback
-                    temp.setRGB(i,SCREEN_HEIGHT-1- j, rust.getRGB());
-                    continue;
-                }
-
-                // Escape-time iteration: stop if |z| > 2 (proof in 1.3) or max iterations reached
-                // Equation ( (z_a * z_a) + (z_b * z_b) <= 4 ) proof in 1.4
-                while ((z_a * z_a) + (z_b * z_b) <= 4 && numberOfIterations < maxIterations) {
-                    //Equations Proof in 1.5
-                    double zn_a = (z_a * z_a) - (z_b * z_b) + (c_a);  // Real part
-                    double zn_b = 2 * (z_a * z_b) + (c_b);            // Imaginary part
-
-                    z_a = zn_a;
-                    z_b = zn_b;
-                    numberOfIterations++;
-                }
-
-                // Coloring: black if inside, else color based on iteration count
-                int color = numberOfIterations == maxIterations
-                        ? 0
-                        : Color.HSBtoRGB(
-                        numberOfIterations / 256f,
-                        1,
-                        numberOfIterations / (numberOfIterations + 8f)
-                );
-
-                // Flip vertically (because screen y-axis is inverted compared to complex plane)
-                temp.setRGB(i, SCREEN_HEIGHT - 1 - j, color);
-            }
+    // Background render currently filling the front buffer (null before the first frame)
+    RenderEngine.Job renderJob;
+
+    // Frame-time budget of a drag preview, and the measured cost of one full-resolution pixel it is planned with
+    static final double PREVIEW_BUDGET_MS = 50;
+    volatile double nanosPerPixel = 100;
+
+    // Metrics of the last finished frame (null before the first one)
+    volatile FrameMetrics lastMetrics;
+
+    // Last finished full frame, the feedback for adaptive iterations, and re-renders spent on the current view
+    private volatile RenderEngine.Job lastFrame;
+    // Window the current full frame shows (snapped to the lattice when it came through the tile cache), for saving
+    private volatile FractalView frameView;
+    private int adaptiveRetries;
+
+    // Set by a zoom-in for the next full render: the previous frame as preview and tile priorities
+    private ZoomSeed pendingSeed;
+
+    // Generate Julia set image in the background, cancelling any render still in flight
+    void generate() {
+        adaptiveRetries = 0;
+        render(false);
+    }
+
+    // Progressive preview while dragging: coarse passes only, as many as fit in PREVIEW_BUDGET_MS
+    void preview() {
+        render(true);
+    }
+
+    private void render(boolean preview) {
+        // Not laid out yet: the first componentResized renders the first frame
+        if (getWidth() <= 0 || getHeight() <= 0) return;
+        frameWidth = getWidth();
+        frameHeight = getHeight();
+
+        if (AdaptiveIterations.enabled && !preview) {
+            RenderEngine.Job last = lastFrame;
+            maxIterations = AdaptiveIterations.forFrame(zoomed, last == null ? null : last.counts(),
+                    last == null ? 0 : last.maxIterations);
+            juliaMaxIterationField.setText(String.valueOf(maxIterations));
+        } else {
+            maxIterations=Integer.parseInt(juliaMaxIterationField.getText());
+        }
+
+        // Snapshot the window so every tile renders the same view
+        final double x0 = xMin, x1 = xMax, y0 = yMin, y1 = yMax;
+        final int max = maxIterations;
+
+        FractalView view = FractalView.julia(c_a, c_b, x0, x1, y0, y1, frameWidth, frameHeight, max);
+
+        // Snap to the cache lattice so pans and zoom-outs reuse earlier tiles
+        TileCache.Grid grid = TileCache.enabled && !preview ? TileCache.Grid.of(view) : null;
+        PixelKernel kernel = grid != null ? grid.kernel(null) : view.kernel();
+
+        if (renderJob != null) renderJob.cancel();
+        // Reused back buffer, still showing the previous frame until new tiles overwrite it
+        BufferedImage temp = surface.nextFrame(frameWidth, frameHeight);
+
+        if (preview) {
+            int stride = RenderEngine.previewStride(frameWidth, frameHeight, nanosPerPixel, PREVIEW_BUDGET_MS * 1e6);
+            renderJob = RenderEngine.submitProgressive(temp, kernel, max, stride, this::tileDone, null);
+            surface.attach(renderJob);
+            return;
         }
-        return temp;
+
+        ZoomSeed seed = pendingSeed;
+        pendingSeed = null;
+        if (seed != null && !seed.fits(frameWidth, frameHeight, max)) seed = null;
+
+        frameView = grid != null ? grid.view(frameWidth, frameHeight) : view;
+        renderJob = RenderEngine.submit(temp, kernel, max, grid, seed, this::tileDone, job -> {
+            // Cost per pixel actually computed, for planning previews
+            long computed = grid == null ? (long) frameWidth * frameHeight
+                    : job.cacheMisses() * TileCache.TILE_SIZE * TileCache.TILE_SIZE;
+            if (computed > 0) nanosPerPixel = job.elapsedNanos() / (double) computed;
+
+            if (Colouring.equalise) {
+                job.recolour(); // equalisation needs the whole frame's histogram
+                surface.invalidate();
+                repaint();
+            }
+            lastMetrics = FrameMetrics.of(job, 0);
+            lastFrame = job;
+            if (job.mode == RenderMode.VERIFY) {
+                System.out.println("Mariani-Silver check: " + job.mismatchedPixels() + " pixels differ from exhaustive render");
+            }
+            if (FrameMetrics.overlay) repaint();
+            if (BoundaryRefinement.enabled()) BoundaryRefinement.submit(job, () -> {
+                surface.invalidate();
+                repaint();
+            });
+
+            // Too many late escapes: the limit cut the boundary off, render this view again with the raised limit
+            if (AdaptiveIterations.enabled && AdaptiveIterations.refine(max, job.counts()) > max) {
+                SwingUtilities.invokeLater(() -> {
+                    if (renderJob == job && adaptiveRetries < AdaptiveIterations.MAX_RETRIES) {
+                        adaptiveRetries++;
+                        render(false);
+                    }
+                });
+            }
+        });
+        surface.attach(renderJob);
+    }
+
+    // A finished tile: copy it to the screen-side buffer on the next paint
+    private void tileDone(int x, int y, int w, int h) {
+        surface.invalidate(x, y, w, h);
+        repaint(x, y, w, h);
+    }
+
+    // Palette, cycling or equalisation changed: recolour the stored iteration counts, no re-render
+    @Override
+    public void recolour() {
+        if (renderJob == null) return;
+        renderJob.recolour();
+        surface.invalidate();
+        repaint();
     }
 
     // Draw Julia set image
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        g.drawImage(img, 0, 0, null);
+        surface.paint(g);
+        FrameMetrics metrics = lastMetrics;
+        if (FrameMetrics.overlay && metrics != null) metrics.draw(g);
     }
 
+    // Queue the current frame for saving in ImageSaver.outputDirectory, with the view in its metadata
     public void saveImageToFolder()  {
-        try {
-            String desktopPath = System.getProperty("user.home") + File.separator + "Desktop";
-            // desktopPath=""; Provide path where u want to save images.
-            File file = new File(desktopPath, "julia" + MandelBrot.imageStoreNumber + ".png");
-            imageStoreNumber++;
-
-            ImageIO.write(img, "png", file);
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
+        if (surface.front() == null) return;
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("Software", "MandelBrot");
+        FractalView view = frameView;
+        if (view != null) metadata.put("View", BatchRender.format(view));
+        metadata.put("Colouring", BatchRender.formatColouring());
+        if (!ImageSaver.save(surface.front(), "julia", metadata)) {
+            JOptionPane.showMessageDialog(this, ImageSaver.QUEUE_FULL);
         }
     }
 
-    boolean isGenerating = false;
-
     // Zoom on double click
     @Override
     public void mouseClicked(MouseEvent e) { //Proof in 2.2
         // Double click: zoom in/out
         //Proof in 2.2
         if (e.getClickCount() == 2) {
-            if (isGenerating || isDragging) return;
-            isGenerating = true;
+            if (isDragging) return;
 
             // Fractional position of click in window (0.0 = left/top, 1.0 = right/bottom)
-            // Ratios with respect to Screen dimensions
-            double fx = e.getX() / (double) SCREEN_WIDTH;
-            double fy = e.getY() / (double) SCREEN_HEIGHT;
+            // Ratios with respect to the frame's dimensions
+            double fx = e.getX() / (double) frameWidth;
+            double fy = e.getY() / (double) frameHeight;
 
             // Find complex-plane coordinates of clicked pixel
             double xCenter = xMin + fx * (xMax - xMin);
@@ -168,44 +245,57 @@ public class Julia extends JPanel implements MouseInputListener {
             double newHeight = (yMax - yMin) * scale;
 
             // Re-center window around click, preserving relative position (fx,fy)
+            double oldCenterX = (xMin + xMax) / 2, oldCenterY = (yMin + yMax) / 2;
+            double oldWidth = xMax - xMin, oldHeight = yMax - yMin;
             xMin = xCenter - (fx * newWidth);
             xMax = xMin + newWidth;
             yMin = yCenter - (fy * newHeight);
             yMax = yMin + newHeight;
 
+            // Zooming in: the finished frame on screen covers the new one, seed it from there
+            if (scale < 1) {
+                pendingSeed = ZoomSeed.of(renderJob, oldWidth, oldHeight, (xMin + xMax) / 2 - oldCenterX,
+                        (yMin + yMax) / 2 - oldCenterY, newWidth, newHeight);
+            }
+
             zoomed*=(e.getButton()==MouseEvent.BUTTON1) ? 1/zoomFactor : zoomFactor;
             juliaZoomLevelField.setText(String.valueOf(zoomed));
 
-            img=generate();  // recompute fractal
-            repaint();   // redraw
-            isGenerating = false;
+            generate();  // recompute fractal, superseding any render in flight
         }
     }
 
     double dragStartX, dragStartY;
     boolean isDragging = false;
 
+    boolean hasPanned = false; // only re-render on release if the view actually moved
+
+    // While dragging, show a preview at most once per PREVIEW_DELAY ms instead of on every mouse-move
+    static final int PREVIEW_DELAY = 40;
+    final Timer previewTimer = new Timer(PREVIEW_DELAY, e -> preview());
+
     // Start dragging
     @Override
     public void mousePressed(MouseEvent e) {
         dragStartX = e.getX();
         dragStartY = e.getY();
         isDragging = true;
+        hasPanned = false;
     }
 
     // Handle dragging (panning)
     // Proof in 2.3
     @Override
     public void mouseDragged(MouseEvent e) {
-        if (!isDragging || isGenerating) return;
+        if (!isDragging) return;
 
         // Pixel movement
         double dx = dragStartX - e.getX();
         double dy = dragStartY - e.getY();
 
         // Convert to complex plane shift
-        double xCenter = (dx / SCREEN_WIDTH) * (xMax - xMin);
-        double yCenter = (dy / SCREEN_HEIGHT) * (yMax - yMin);
+        double xCenter = (dx / frameWidth) * (xMax - xMin);
+        double yCenter = (dy / frameHeight) * (yMax - yMin);
 
         // Shift view window
         xMin += xCenter;
@@ -216,12 +306,17 @@ public class Julia extends JPanel implements MouseInputListener {
         dragStartX = e.getX();
         dragStartY = e.getY();
 
-        img=generate();
-        repaint();
+        hasPanned = true;
+
+        if (!previewTimer.isRunning()) previewTimer.start();
     }
 
     @Override
     public void mouseReleased(MouseEvent e) {
+        if (hasPanned) {
+            previewTimer.stop();
+            generate(); // full quality once the input stops
+        }
         isDragging = false;
     }
 
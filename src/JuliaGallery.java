@@ -0,0 +1,109 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+
+/**
+ * Julia gallery: a columns × rows grid of Julia set thumbnails, one per c sampled at the cell centres
+ * of a Mandelbrot region (the current Mandelbrot view).
+ * - Every thumbnail is its own RenderEngine job; they all share the common pool and render concurrently
+ * - Cells are sized so the whole grid fits on screen, so memory stays about one screen of pixels whatever the grid size
+ * - Clicking a thumbnail opens the full Julia window for its c
+ */
+public class JuliaGallery extends JPanel {
+
+    // Largest thumbnail edge; small grids do not get huge cells
+    static final int MAX_CELL = 256;
+
+    // Julia sets lie in |z| <= 2 (Proof in 1.1)
+    static final double JULIA_RADIUS = 2;
+
+    final int columns, rows, cell;
+    final double[] c_a, c_b;
+    final BufferedImage[] thumbnails;
+    final RenderEngine.Job[] jobs;
+
+    JuliaGallery(double xMin, double xMax, double yMin, double yMax, int columns, int rows, int maxIterations) {
+        this.columns = columns;
+        this.rows = rows;
+
+        Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+        cell = Math.max(16, Math.min(MAX_CELL, Math.min(screen.width * 9 / 10 / columns, screen.height * 8 / 10 / rows)));
+        setPreferredSize(new Dimension(columns * cell, rows * cell));
+
+        int n = columns * rows;
+        c_a = new double[n];
+        c_b = new double[n];
+        thumbnails = new BufferedImage[n];
+        jobs = new RenderEngine.Job[n];
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                int k = row * columns + col;
+                // Cell centre in the region; row 0 is the top, so imaginary parts decrease downwards
+                c_a[k] = xMin + (col + 0.5) / columns * (xMax - xMin);
+                c_b[k] = yMax - (row + 0.5) / rows * (yMax - yMin);
+
+                thumbnails[k] = new BufferedImage(cell, cell, BufferedImage.TYPE_INT_RGB);
+                FractalView view = FractalView.julia(c_a[k], c_b[k], -JULIA_RADIUS, JULIA_RADIUS,
+                        -JULIA_RADIUS, JULIA_RADIUS, cell, cell, maxIterations);
+                int x0 = col * cell, y0 = row * cell;
+                jobs[k] = RenderEngine.submit(thumbnails[k], view.kernel(), maxIterations,
+                        (x, y, w, h) -> repaint(x0 + x, y0 + y, w, h));
+            }
+        }
+
+        setToolTipText("");
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int k = cellAt(e.getPoint());
+                if (k >= 0) Main.openJulia(c_a[k], c_b[k]);
+            }
+        });
+    }
+
+    // Opens a gallery window over the given region; closing it cancels the renders still running
+    static void open(double xMin, double xMax, double yMin, double yMax, int columns, int rows, int maxIterations) {
+        JuliaGallery gallery = new JuliaGallery(xMin, xMax, yMin, yMax, columns, rows, maxIterations);
+        JFrame frame = new JFrame("Julia gallery: " + columns + "x" + rows + " over ["
+                + xMin + ", " + xMax + "] x [" + yMin + ", " + yMax + "]");
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                for (RenderEngine.Job job : gallery.jobs) job.cancel();
+            }
+        });
+        frame.add(new JScrollPane(gallery));
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+    }
+
+    private int cellAt(Point p) {
+        int col = p.x / cell, row = p.y / cell;
+        return col < columns && row < rows ? row * columns + col : -1;
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        int k = cellAt(e.getPoint());
+        return k < 0 ? null : c_a[k] + " + " + c_b[k] + "i";
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        for (int k = 0; k < thumbnails.length; k++) {
+            g.drawImage(thumbnails[k], (k % columns) * cell, (k / columns) * cell, null);
+        }
+        // Grid lines between cells
+        g.setColor(Color.DARK_GRAY);
+        for (int col = 1; col < columns; col++) g.drawLine(col * cell, 0, col * cell, rows * cell);
+        for (int row = 1; row < rows; row++) g.drawLine(0, row * cell, columns * cell, row * cell);
+    }
+}
@@ -10,8 +10,50 @@ public class Main implements ActionListener {
     private static JTextField zoomField;
     private static JTextField zoomLevelTextField;
     private static JTextField maxIterationField;
+    private static JTextField galleryGridField;
+    private static MandelBrot mandelbrotPanel;
+
+    public static void main(String[] args) throws Exception {
+
+        // Headless batch mode: java -Djava.awt.headless=true Main --batch views.txt outputDir
+        if (args.length > 0 && args[0].equals("--batch")) {
+            if (args.length != 3) {
+                System.out.println("Usage: java -Djava.awt.headless=true Main --batch <views file> <output dir>");
+                System.exit(2);
+            }
+            BatchRender.run(args[1], args[2]);
+            return;
+        }
 
-    public static void main(String[] args) {
+        // Poster export, rendered in bands and resumable: java -Djava.awt.headless=true Main --poster out.png <view>
+        if (args.length > 0 && args[0].equals("--poster")) {
+            PosterExport.run(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // Headless zoom animation: java -Djava.awt.headless=true Main --zoom c_a c_b finalZoom frames w h max outputDir
+        if (args.length > 0 && args[0].equals("--zoom")) {
+            ZoomVideo.run(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // Render farm: java -Djava.awt.headless=true Main --farm port localWorkers views.txt outputDir
+        if (args.length > 0 && args[0].equals("--farm")) {
+            RenderFarm.run(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // Render farm worker: java -Djava.awt.headless=true Main --worker host:port
+        if (args.length > 0 && args[0].equals("--worker")) {
+            FarmWorker.run(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // Orbit density: java -Djava.awt.headless=true Main --buddhabrot out.png seconds buddhabrot|anti <region> w h max
+        if (args.length > 0 && args[0].equals("--buddhabrot")) {
+            OrbitDensity.run(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
 
         // Create main JFrame
         JFrame frame = new JFrame("Mandelbrot");
@@ -30,6 +72,87 @@ public class Main implements ActionListener {
         maxIterationField = new JTextField("5000", 5);
         leftPanel.add(maxIterationField);
 
+        // Adaptive: the iterations field follows zoom depth and the last frame's late escapes
+        JCheckBox adaptiveBox = new JCheckBox("Auto");
+        adaptiveBox.addActionListener(e -> AdaptiveIterations.enabled = adaptiveBox.isSelected());
+        leftPanel.add(adaptiveBox);
+
+        leftPanel.add(new JLabel("  Render:"));
+        JComboBox<RenderMode> renderModeBox = new JComboBox<>(RenderMode.values());
+        renderModeBox.addActionListener(e -> RenderEngine.renderMode = (RenderMode) renderModeBox.getSelectedItem());
+        leftPanel.add(renderModeBox);
+
+        JCheckBox tileCacheBox = new JCheckBox("Tile cache", TileCache.enabled);
+        tileCacheBox.addActionListener(e -> TileCache.enabled = tileCacheBox.isSelected());
+        leftPanel.add(tileCacheBox);
+
+        // Persistent tile store (opt-in): tiles survive restarts; clearing also empties the in-memory cache
+        JCheckBox tileStoreBox = new JCheckBox("Disk", TileStore.enabled);
+        tileStoreBox.addActionListener(e -> TileStore.setEnabled(tileStoreBox.isSelected()));
+        leftPanel.add(tileStoreBox);
+        JButton clearTilesButton = new JButton("Clear tiles");
+        clearTilesButton.addActionListener(e -> {
+            TileCache.SHARED.clear();
+            TileStore.SHARED.clear();
+        });
+        leftPanel.add(clearTilesButton);
+
+        // Arithmetic tier: Auto follows the pixel spacing, the others force one for comparison
+        leftPanel.add(new JLabel("  Precision:"));
+        JComboBox<String> precisionBox = new JComboBox<>(new String[]{"Auto", "float", "double", "double-double", "BigDecimal"});
+        precisionBox.addActionListener(e -> {
+            int k = precisionBox.getSelectedIndex();
+            Precision.forced = k == 0 ? null : Precision.values()[k - 1];
+            mandelbrotPanel.generate();
+        });
+        leftPanel.add(precisionBox);
+
+        JCheckBox zoomSeedBox = new JCheckBox("Zoom reuse", ZoomSeed.enabled);
+        zoomSeedBox.addActionListener(e -> ZoomSeed.enabled = zoomSeedBox.isSelected());
+        leftPanel.add(zoomSeedBox);
+
+        // Colouring works on stored iteration counts, so these never trigger a re-render
+        leftPanel.add(new JLabel("  Palette:"));
+        JComboBox<ColourScheme> paletteBox = new JComboBox<>(ColourScheme.values());
+        paletteBox.addActionListener(e -> {
+            Colouring.scheme = (ColourScheme) paletteBox.getSelectedItem();
+            Colouring.changed();
+        });
+        leftPanel.add(paletteBox);
+
+        JCheckBox equaliseBox = new JCheckBox("Equalise");
+        equaliseBox.addActionListener(e -> {
+            Colouring.equalise = equaliseBox.isSelected();
+            Colouring.changed();
+        });
+        leftPanel.add(equaliseBox);
+
+        JCheckBox cycleBox = new JCheckBox("Cycle");
+        cycleBox.addActionListener(e -> Colouring.setCycling(cycleBox.isSelected()));
+        leftPanel.add(cycleBox);
+
+        // Boundary refinement needs the frame's kernel, so it re-renders (tile cache hits make that cheap)
+        JCheckBox distanceBox = new JCheckBox("Distance est.");
+        distanceBox.addActionListener(e -> {
+            BoundaryRefinement.distanceEstimation = distanceBox.isSelected();
+            mandelbrotPanel.generate();
+        });
+        leftPanel.add(distanceBox);
+
+        JCheckBox antiAliasBox = new JCheckBox("Anti-alias");
+        antiAliasBox.addActionListener(e -> {
+            BoundaryRefinement.antiAliasing = antiAliasBox.isSelected();
+            mandelbrotPanel.generate();
+        });
+        leftPanel.add(antiAliasBox);
+
+        JCheckBox metricsBox = new JCheckBox("Metrics");
+        metricsBox.addActionListener(e -> {
+            FrameMetrics.overlay = metricsBox.isSelected();
+            for (Window window : Window.getWindows()) window.repaint();
+        });
+        leftPanel.add(metricsBox);
+
         // ===== Center panel: Real, Imaginary, Generate =====
         JPanel centerPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
         centerPanel.add(new JLabel("Real:"));
@@ -45,6 +168,22 @@ public class Main implements ActionListener {
         generateBtn.setForeground(Color.BLACK);
         centerPanel.add(generateBtn);
 
+        // Gallery: Julia thumbnails for c across the current Mandelbrot view, grid given as columns x rows
+        galleryGridField = new JTextField("8x6", 4);
+        centerPanel.add(galleryGridField);
+        JButton galleryBtn = new JButton("Gallery");
+        galleryBtn.setBackground(Color.WHITE);
+        galleryBtn.setForeground(Color.BLACK);
+        galleryBtn.addActionListener(e -> openGallery());
+        centerPanel.add(galleryBtn);
+
+        // Buddhabrot: orbit density over the current Mandelbrot view, converging in its own window
+        JButton buddhabrotBtn = new JButton("Buddhabrot");
+        buddhabrotBtn.setBackground(Color.WHITE);
+        buddhabrotBtn.setForeground(Color.BLACK);
+        buddhabrotBtn.addActionListener(e -> openBuddhabrot());
+        centerPanel.add(buddhabrotBtn);
+
 
         // ===== Right panel: Save + Zoom Level =====
         JPanel rightPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -54,6 +193,19 @@ public class Main implements ActionListener {
         saveButton.setForeground(Color.BLACK);
         rightPanel.add(saveButton);
 
+        // Output directory for saved images (Julia windows save there too)
+        JButton folderButton = new JButton("Folder...");
+        folderButton.setToolTipText("Save to " + ImageSaver.outputDirectory);
+        folderButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser(ImageSaver.outputDirectory);
+            chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+            if (chooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+                ImageSaver.outputDirectory = chooser.getSelectedFile();
+                folderButton.setToolTipText("Save to " + ImageSaver.outputDirectory);
+            }
+        });
+        rightPanel.add(folderButton);
+
         rightPanel.add(new JLabel("  Zoomed \uD83D\uDD0E:"));
         zoomLevelTextField = new JTextField("1", 10);
         zoomLevelTextField.setEditable(false);
@@ -68,7 +220,7 @@ public class Main implements ActionListener {
         frame.add(controls, BorderLayout.SOUTH);
 
         // Create Mandelbrot panel
-        MandelBrot mandelbrotPanel = new MandelBrot(realField, imagField, zoomField, maxIterationField, zoomLevelTextField);
+        mandelbrotPanel = new MandelBrot(realField, imagField, zoomField, maxIterationField, zoomLevelTextField);
         saveButton.addActionListener(e -> mandelbrotPanel.saveImageToFolder());
 
         frame.add(mandelbrotPanel, BorderLayout.CENTER);
@@ -88,61 +240,86 @@ public class Main implements ActionListener {
         try {
             double real = Double.parseDouble(realField.getText());
             double imag = Double.parseDouble(imagField.getText());
+            openJulia(real, imag);
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(null, "Invalid input! Please enter numbers.");
+        }
+    }
 
-            // Create Julia JFrame
-            JFrame juliaFrame = new JFrame();
-            juliaFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-            juliaFrame.setLayout(new BorderLayout());
+    private static void openGallery() {
+        try {
+            String[] grid = galleryGridField.getText().trim().toLowerCase().split("\\s*[x×]\\s*");
+            int columns = Integer.parseInt(grid[0]);
+            int rows = Integer.parseInt(grid[grid.length - 1]);
+            if (columns < 1 || rows < 1) throw new NumberFormatException();
+            JuliaGallery.open(mandelbrotPanel.xMin, mandelbrotPanel.xMax, mandelbrotPanel.yMin, mandelbrotPanel.yMax,
+                    columns, rows, Integer.parseInt(maxIterationField.getText()));
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(null, "Invalid grid! Enter columns x rows, e.g. 8x6.");
+        }
+    }
 
-            // Initialize local fields for Julia
-            JTextField localJuliaZoomField = new JTextField("1.25", 5);
-            JTextField localJuliaMaxIterField = new JTextField("5000", 5);
-            JTextField localJuliaZoomLevelField = new JTextField("1", 10);
-            localJuliaZoomLevelField.setEditable(false);
+    private static void openBuddhabrot() {
+        try {
+            Buddhabrot.open(mandelbrotPanel.xMin, mandelbrotPanel.xMax, mandelbrotPanel.yMin, mandelbrotPanel.yMax,
+                    Integer.parseInt(maxIterationField.getText()));
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(null, "Invalid input! Please enter numbers.");
+        }
+    }
+
+    // Full-screen Julia window for c = real + imag·i
+    static void openJulia(double real, double imag) {
+        // Create Julia JFrame
+        JFrame juliaFrame = new JFrame();
+        juliaFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        juliaFrame.setLayout(new BorderLayout());
 
+        // Initialize local fields for Julia
+        JTextField localJuliaZoomField = new JTextField("1.25", 5);
+        JTextField localJuliaMaxIterField = new JTextField("5000", 5);
+        JTextField localJuliaZoomLevelField = new JTextField("1", 10);
+        localJuliaZoomLevelField.setEditable(false);
 
-            // Julia control panel
-            JPanel juliaControlsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-            juliaControlsPanel.add(Box.createHorizontalStrut(50));
-            juliaControlsPanel.add(new JLabel("Zoom \uD83D\uDD0E:"));
-            juliaControlsPanel.add(localJuliaZoomField);
 
-            juliaControlsPanel.add(Box.createHorizontalStrut(30));
-            juliaControlsPanel.add(new JLabel("  Iterations \uD83D\uDD01:"));
-            juliaControlsPanel.add(localJuliaMaxIterField);
+        // Julia control panel
+        JPanel juliaControlsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        juliaControlsPanel.add(Box.createHorizontalStrut(50));
+        juliaControlsPanel.add(new JLabel("Zoom \uD83D\uDD0E:"));
+        juliaControlsPanel.add(localJuliaZoomField);
 
-            juliaControlsPanel.add(Box.createHorizontalStrut(900));
+        juliaControlsPanel.add(Box.createHorizontalStrut(30));
+        juliaControlsPanel.add(new JLabel("  Iterations \uD83D\uDD01:"));
+        juliaControlsPanel.add(localJuliaMaxIterField);
 
-            JButton saveButton = new JButton("\uD83D\uDCC2 Save");
-            saveButton.setBackground(Color.WHITE);
-            saveButton.setForeground(Color.BLACK);
-            juliaControlsPanel.add(saveButton);
+        juliaControlsPanel.add(Box.createHorizontalStrut(900));
 
-            juliaControlsPanel.add(Box.createHorizontalStrut(5));
+        JButton saveButton = new JButton("\uD83D\uDCC2 Save");
+        saveButton.setBackground(Color.WHITE);
+        saveButton.setForeground(Color.BLACK);
+        juliaControlsPanel.add(saveButton);
 
-            juliaControlsPanel.add(new JLabel(" Zoomed \uD83D\uDD0E:"));
-            juliaControlsPanel.add(localJuliaZoomLevelField);
+        juliaControlsPanel.add(Box.createHorizontalStrut(5));
 
+        juliaControlsPanel.add(new JLabel(" Zoomed \uD83D\uDD0E:"));
+        juliaControlsPanel.add(localJuliaZoomLevelField);
 
-            // Create Julia panel
-            Julia juliaPanel = new Julia(real, imag,
-                    localJuliaZoomField,
-                    localJuliaZoomLevelField,
-                    localJuliaMaxIterField);
 
+        // Create Julia panel
+        Julia juliaPanel = new Julia(real, imag,
+                localJuliaZoomField,
+                localJuliaZoomLevelField,
+                localJuliaMaxIterField);
 
-            saveButton.addActionListener(k -> juliaPanel.saveImageToFolder());
 
-            // Add components to Julia frame
-            juliaFrame.add(juliaPanel, BorderLayout.CENTER);
-            juliaFrame.add(juliaControlsPanel, BorderLayout.SOUTH);
+        saveButton.addActionListener(k -> juliaPanel.saveImageToFolder());
 
-            juliaFrame.setTitle("Julia Set for " + juliaPanel.c_a + " + " + juliaPanel.c_b + "i");
-            juliaFrame.setExtendedState(JFrame.MAXIMIZED_BOTH);
-            juliaFrame.setVisible(true);
+        // Add components to Julia frame
+        juliaFrame.add(juliaPanel, BorderLayout.CENTER);
+        juliaFrame.add(juliaControlsPanel, BorderLayout.SOUTH);
 
-        } catch (NumberFormatException ex) {
-            JOptionPane.showMessageDialog(null, "Invalid input! Please enter numbers.");
-        }
+        juliaFrame.setTitle("Julia Set for " + juliaPanel.c_a + " + " + juliaPanel.c_b + "i");
+        juliaFrame.setExtendedState(JFrame.MAXIMIZED_BOTH);
+        juliaFrame.setVisible(true);
     }
 }
@@ -1,12 +1,15 @@
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.event.MouseInputListener;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Mandelbrot Set Explorer
@@ -18,7 +21,7 @@ import java.io.IOException;
  * - Get complex coordinates of any points
  * - Generate Julia set of the complex number
  */
-public class MandelBrot extends JPanel implements MouseInputListener {
+public class MandelBrot extends JPanel implements MouseInputListener, Colouring.Recolourable {
 
     JTextField realField; //Reference to JFrame realField and imagField
     JTextField imagField;
@@ -26,9 +29,9 @@ public class MandelBrot extends JPanel implements MouseInputListener {
     JTextField zoomLevelField;
     JTextField maxIterationField;
 
-    // Screen dimensions (dynamic from user’s monitor)
-    final static int SCREEN_WIDTH;
-    final static int SCREEN_HEIGHT;
+    // Size of the frame on screen: the panel's size when it was rendered (0 before the panel is laid out)
+    int frameWidth;
+    int frameHeight;
 
     // Mandelbrot parameters
     static int maxIterations = 5000;  // max escape-time iterations
@@ -41,16 +44,20 @@ public class MandelBrot extends JPanel implements MouseInputListener {
     double yMin = -2.5;  // Mandelbrot lies roughly in [-2,2] + i[-2,2] but we have taken 2.5
     double yMax =  2.5;  // See Proof in 1.1
 
-    // Buffered image to store computed fractal
-    BufferedImage img;
-    static int imageStoreNumber=1;
+    // Deep zoom: the same window as a high-precision centre plus its size.
+    // xMin..yMax run out of double precision past ~1e13 zoom; these keep the view exact
+    // and drive the perturbation kernel once Precision selects a deep tier for the pixel spacing
+    BigDecimal centerX = BigDecimal.ZERO;
+    BigDecimal centerY = BigDecimal.ZERO;
+    double spanX = xMax - xMin;
+    double spanY = yMax - yMin;
 
-    // Static block to dynamically set display resolution
-    static {
-        Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
-        SCREEN_WIDTH  = screen.width;
-        SCREEN_HEIGHT = screen.height;
-    }
+    // Front/back buffers the fractal is rendered into, at the panel's size
+    final RenderSurface surface = new RenderSurface(this);
+
+    // Re-render once a resize has settled instead of on every intermediate size
+    static final int RESIZE_DELAY = 100;
+    final Timer resizeTimer = new Timer(RESIZE_DELAY, e -> generate());
 
     // Constructor: initializes image + mouse listeners
     MandelBrot(JTextField real, JTextField imaginary,JTextField zoomField,JTextField maxIterationField,JTextField zoomLevelField) {
@@ -61,93 +68,194 @@ public class MandelBrot extends JPanel implements MouseInputListener {
         this.maxIterationField=maxIterationField;
         this.zoomLevelField=zoomLevelField;
 
-        img =generate(); // generate Mandelbrot for initial view
+        generate(); // generate Mandelbrot for initial view
 
         // Register event listeners for interactivity
+        Colouring.register(this);
+        previewTimer.setRepeats(false);
+        resizeTimer.setRepeats(false);
         addMouseListener(this);
         addMouseMotionListener(this);
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                if (surface.front() == null) generate(); // first layout: render right away
+                else resizeTimer.restart();
+            }
+        });
     }
 
-    /**
-     * Generates Mandelbrot fractal image for current [xMin, xMax] × [yMin, yMax] window.
-     * Uses escape-time algorithm: z_{n+1} = z_n^2 + c
-     */
-    BufferedImage generate() {
-        BufferedImage temp= new BufferedImage(SCREEN_WIDTH, SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+    // Background render currently filling the front buffer (null before the first frame)
+    RenderEngine.Job renderJob;
 
-        maxIterations=Integer.parseInt(maxIterationField.getText());
+    // Iterations saved by the interior shortcuts (cardioid/bulb test, periodicity) in the last finished frame
+    volatile long skippedIterations;
 
-        for (int i = 0; i < SCREEN_WIDTH; i++) {
-            for (int j = 0; j < SCREEN_HEIGHT; j++) {
+    // Frame-time budget of a drag preview, and the measured cost of one full-resolution pixel it is planned with
+    static final double PREVIEW_BUDGET_MS = 50;
+    volatile double nanosPerPixel = 100;
 
-                // Convert pixel (i,j) into complex number (c_a + c_b i)
-                // Proof in 2.1
-                double c_a = xMin + (i / (double) SCREEN_WIDTH) * (xMax - xMin);
-                double c_b = yMin + (j / (double) SCREEN_HEIGHT) * (yMax - yMin);
+    // Metrics of the last finished frame (null before the first one)
+    volatile FrameMetrics lastMetrics;
 
-                double z_a = 0, z_b = 0; // z_n = 0 initial
-                int numberOfIterations = 0;
+    // Last finished full frame, the feedback for adaptive iterations, and re-renders spent on the current view
+    private volatile RenderEngine.Job lastFrame;
+    // Window the current full frame shows (snapped to the lattice when it came through the tile cache), for saving
+    private volatile FractalView frameView;
+    private int adaptiveRetries;
 
-                // Equation ( (c_a * c_a) + (c_b * c_b) <= 4 ) proof in 1.2
-                if ((c_a * c_a) + (c_b * c_b) > 4) {
-                    Color rust = new Color(28, 1, 0); // Reddish-brown fallback
-                    temp.setRGB(i, SCREEN_HEIGHT - 1 - j, rust.getRGB());
-                    continue;
-                }
+    // Set by a zoom-in for the next full render: the previous frame as preview and tile priorities
+    private ZoomSeed pendingSeed;
 
-                // |Z_n|>2 point will reach infinity (See Proof in 1.3).
-                // We will use this to check if the point belongs to Mandelbrot set or not.
+    /**
+     * Generates Mandelbrot fractal image for current [xMin, xMax] × [yMin, yMax] window.
+     * Uses escape-time algorithm: z_{n+1} = z_n^2 + c
+     * Rendering runs in the background: any render still in flight is cancelled
+     * and finished tiles are painted as they arrive.
+     */
+    void generate() {
+        adaptiveRetries = 0;
+        render(false);
+    }
 
+    // Progressive preview while dragging: coarse passes only, as many as fit in PREVIEW_BUDGET_MS
+    void preview() {
+        render(true);
+    }
 
-                // Equation ( (z_a * z_a) + (z_b * z_b) <= 4 ) proof in 1.4
-                while ((z_a * z_a) + (z_b * z_b) <= 4 && numberOfIterations < maxIterations) {
-                    // Equations proof in 1.5
-                    double zn_a = (z_a * z_a) - (z_b * z_b) + (c_a);
-                    double zn_b = 2 * (z_a * z_b) + (c_b);
+    private void render(boolean preview) {
+        // Not laid out yet: the first componentResized renders the first frame
+        if (getWidth() <= 0 || getHeight() <= 0) return;
+        frameWidth = getWidth();
+        frameHeight = getHeight();
+
+        if (AdaptiveIterations.enabled && !preview) {
+            RenderEngine.Job last = lastFrame;
+            maxIterations = AdaptiveIterations.forFrame(zoomed, last == null ? null : last.counts(),
+                    last == null ? 0 : last.maxIterations);
+            maxIterationField.setText(String.valueOf(maxIterations));
+        } else {
+            maxIterations=Integer.parseInt(maxIterationField.getText());
+        }
 
-                    z_a = zn_a;
-                    z_b = zn_b;
-                    numberOfIterations++;
-                }
+        // Snapshot the window so every tile renders the same view
+        final double x0 = xMin, x1 = xMax, y0 = yMin, y1 = yMax;
+        final int max = maxIterations;
+        final LongAdder skipped = new LongAdder();
+
+        PixelKernel kernel;
+        TileCache.Grid grid = null;
+        Precision precision = Precision.select(spanX / frameWidth);
+        if (precision.isDeep()) {
+            // Deep zoom: offsets from one double-double or BigDecimal reference orbit at the window centre
+            final double w = spanX, h = spanY;
+            Perturbation deep = new Perturbation(centerX, centerY, Math.hypot(w, h) / 2, max, precision);
+            kernel = deep.kernel(frameWidth, frameHeight, w, h);
+        } else {
+            FractalView view = FractalView.mandelbrot(x0, x1, y0, y1, frameWidth, frameHeight, max);
+            if (TileCache.enabled && !preview) {
+                // Snap to the cache lattice so pans and zoom-outs reuse earlier tiles
+                grid = TileCache.Grid.of(view);
+                kernel = grid.kernel(skipped);
+            } else {
+                kernel = view.kernel(skipped);
+            }
+        }
 
-                // Coloring: black if inside Mandelbrot, colorful gradient if outside
-                int color = (numberOfIterations == maxIterations)
-                        ? 0
-                        : Color.HSBtoRGB(numberOfIterations / 256f, 1,
-                        numberOfIterations / (numberOfIterations + 8f));
+        if (renderJob != null) renderJob.cancel();
+        // Reused back buffer, still showing the previous frame until new tiles overwrite it
+        BufferedImage temp = surface.nextFrame(frameWidth, frameHeight);
 
-                // Flip vertically because screen coordinates differ from complex plane
-                // As Image Buffer left top corner starts from 0,0 but screens bottom left is 0,0 so inverting image
-                temp.setRGB(i, SCREEN_HEIGHT - 1 - j, color);
+        if (preview) {
+            int stride = RenderEngine.previewStride(frameWidth, frameHeight, nanosPerPixel, PREVIEW_BUDGET_MS * 1e6);
+            renderJob = RenderEngine.submitProgressive(temp, kernel, max, stride, this::tileDone, null);
+            surface.attach(renderJob);
+            return;
+        }
 
+        ZoomSeed seed = pendingSeed;
+        pendingSeed = null;
+        if (seed != null && !seed.fits(frameWidth, frameHeight, max)) seed = null;
+
+        final TileCache.Grid frameGrid = grid;
+        frameView = grid != null ? grid.view(frameWidth, frameHeight)
+                : FractalView.mandelbrot(x0, x1, y0, y1, frameWidth, frameHeight, max);
+        renderJob = RenderEngine.submit(temp, kernel, max, grid, seed, this::tileDone, job -> {
+            // Cost per pixel actually computed, for planning previews
+            long computed = frameGrid == null ? (long) frameWidth * frameHeight
+                    : job.cacheMisses() * TileCache.TILE_SIZE * TileCache.TILE_SIZE;
+            if (computed > 0) nanosPerPixel = job.elapsedNanos() / (double) computed;
+
+            if (Colouring.equalise) {
+                job.recolour(); // equalisation needs the whole frame's histogram
+                surface.invalidate();
+                repaint();
             }
-        }
-        return temp;
+            skippedIterations = skipped.sum();
+            lastMetrics = FrameMetrics.of(job, skippedIterations);
+            lastFrame = job;
+            if (job.mode == RenderMode.VERIFY) {
+                System.out.println("Mariani-Silver check: " + job.mismatchedPixels() + " pixels differ from exhaustive render");
+            }
+            if (FrameMetrics.overlay) repaint();
+            if (BoundaryRefinement.enabled()) BoundaryRefinement.submit(job, () -> {
+                surface.invalidate();
+                repaint();
+            });
+
+            // Too many late escapes: the limit cut the boundary off, render this view again with the raised limit
+            if (AdaptiveIterations.enabled && AdaptiveIterations.refine(max, job.counts()) > max) {
+                SwingUtilities.invokeLater(() -> {
+                    if (renderJob == job && adaptiveRetries < AdaptiveIterations.MAX_RETRIES) {
+                        adaptiveRetries++;
+                        render(false);
+                    }
+                });
+            }
+        });
+        surface.attach(renderJob);
+    }
+
+    // A finished tile: copy it to the screen-side buffer on the next paint
+    private void tileDone(int x, int y, int w, int h) {
+        surface.invalidate(x, y, w, h);
+        repaint(x, y, w, h);
+    }
+
+    // Palette, cycling or equalisation changed: recolour the stored iteration counts, no re-render
+    @Override
+    public void recolour() {
+        if (renderJob == null) return;
+        renderJob.recolour();
+        surface.invalidate();
+        repaint();
     }
 
     // Draw image onto JPanel
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        g.drawImage(img, 0, 0, null);
+        surface.paint(g);
+        FrameMetrics metrics = lastMetrics;
+        if (FrameMetrics.overlay && metrics != null) metrics.draw(g);
     }
 
+    // Queue the current frame for saving in ImageSaver.outputDirectory, with the view in its metadata
     public void saveImageToFolder()  {
-        try {
-            String desktopPath = System.getProperty("user.home") + File.separator + "Desktop";
-            // desktopPath=""; Provide path where u want to save images.
-            File file = new File(desktopPath, "mandelbrot" + imageStoreNumber + ".png");
-            imageStoreNumber++;
-
-            ImageIO.write(img, "png", file);
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
+        if (surface.front() == null) return;
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("Software", "MandelBrot");
+        FractalView view = frameView;
+        if (view != null) metadata.put("View", BatchRender.format(view));
+        metadata.put("Colouring", BatchRender.formatColouring());
+        // Exact centre for deep zooms, where the double bounds above have run out of precision
+        metadata.put("Center", centerX.toPlainString() + " " + centerY.toPlainString());
+        metadata.put("Span", spanX + " " + spanY);
+        if (!ImageSaver.save(surface.front(), "mandelbrot", metadata)) {
+            JOptionPane.showMessageDialog(this, ImageSaver.QUEUE_FULL);
         }
     }
 
-    // State flag: avoid overlapping computations
-    boolean isGenerating = false;
-
     /**
      * Mouse clicks:
      * - Double click (left) → Zoom in
@@ -161,24 +269,30 @@ public class MandelBrot extends JPanel implements MouseInputListener {
 
             // Convert pixel (i,j) into complex number (c_a + c_b i)
             // Proof in 2.1
-            double x = xMin + (e.getX() / (double) SCREEN_WIDTH) * (xMax - xMin);
-            //double y = yMax - (e.getY() / (double) SCREEN_HEIGHT) * (yMax - yMin); would used it but buffer and jFrame use opposite y so:
-            double y = yMax - (e.getY() / (double) SCREEN_HEIGHT) * (yMax - yMin);
+            double x = xMin + (e.getX() / (double) frameWidth) * (xMax - xMin);
+            //double y = yMax - (e.getY() / (double) frameHeight) * (yMax - yMin); would used it but buffer and jFrame use opposite y so:
+            double y = yMax - (e.getY() / (double) frameHeight) * (yMax - yMin);
 
             realField.setText(String.valueOf(x)); //Update Text Field in Main Frame
             imagField.setText(String.valueOf(y)); //Update Text Field in Main Frame
+
+            // Past double precision, show the exact coordinates from the deep-zoom centre
+            if (Perturbation.isNeeded(spanX / frameWidth)) {
+                MathContext mc = Perturbation.precisionFor(spanX / frameWidth);
+                realField.setText(centerX.add(new BigDecimal((e.getX() / (double) frameWidth - 0.5) * spanX), mc).toPlainString());
+                imagField.setText(centerY.add(new BigDecimal((0.5 - e.getY() / (double) frameHeight) * spanY), mc).toPlainString());
+            }
         }
 
         // Double click: zoom in/out
         //Proof in 2.2
         if (e.getClickCount() == 2) {
-            if (isGenerating || isDragging) return;
-            isGenerating = true;
+            if (isDragging) return;
 
             // Fractional position of click in window (0.0 = left/top, 1.0 = right/bottom)
-            // Ratios with respect to Screen dimensions
-            double fx = e.getX() / (double) SCREEN_WIDTH;
-            double fy = (SCREEN_HEIGHT-1-e.getY()) / (double) SCREEN_HEIGHT;
+            // Ratios with respect to the frame's dimensions
+            double fx = e.getX() / (double) frameWidth;
+            double fy = (frameHeight-1-e.getY()) / (double) frameHeight;
 
             // Find complex-plane coordinates of clicked pixel
             double xCenter = xMin + fx * (xMax - xMin);
@@ -189,8 +303,21 @@ public class MandelBrot extends JPanel implements MouseInputListener {
             double scale = (e.getButton() == MouseEvent.BUTTON1) ? zoomFactor : 1.0 / zoomFactor;
 
             // New window size after zoom
-            double newWidth  = (xMax - xMin) * scale;
-            double newHeight = (yMax - yMin) * scale;
+            double newWidth  = spanX * scale;
+            double newHeight = spanY * scale;
+
+            // Zooming in: the finished frame on screen covers the new one, seed it from there
+            if (scale < 1) {
+                pendingSeed = ZoomSeed.of(renderJob, spanX, spanY, (fx - 0.5) * (spanX - newWidth),
+                        (fy - 0.5) * (spanY - newHeight), newWidth, newHeight);
+            }
+
+            // Same re-centring on the high-precision centre: c_new = c + (f - 0.5) * (oldSize - newSize)
+            MathContext mc = Perturbation.precisionFor(newWidth / frameWidth);
+            centerX = centerX.add(new BigDecimal((fx - 0.5) * (spanX - newWidth)), mc);
+            centerY = centerY.add(new BigDecimal((fy - 0.5) * (spanY - newHeight)), mc);
+            spanX = newWidth;
+            spanY = newHeight;
 
             // Re-center window around click, preserving relative position (fx,fy)
             xMin = xCenter - (fx * newWidth);
@@ -201,15 +328,18 @@ public class MandelBrot extends JPanel implements MouseInputListener {
             zoomed*=(e.getButton()==MouseEvent.BUTTON1) ? 1/zoomFactor : zoomFactor;
             zoomLevelField.setText(String.valueOf(zoomed));
 
-            img=generate();  // recompute fractal
-            repaint();   // redraw
-            isGenerating = false;
+            generate();  // recompute fractal, superseding any render in flight
         }
     }
 
     // Variables for drag functionality
     double dragStartX, dragStartY;
     boolean isDragging = false;
+    boolean hasPanned = false; // only re-render on release if the view actually moved
+
+    // While dragging, show a preview at most once per PREVIEW_DELAY ms instead of on every mouse-move
+    static final int PREVIEW_DELAY = 40;
+    final Timer previewTimer = new Timer(PREVIEW_DELAY, e -> preview());
 
 
     // Mouse pressed: start drag
@@ -218,6 +348,7 @@ public class MandelBrot extends JPanel implements MouseInputListener {
         dragStartX = e.getX();
         dragStartY = e.getY();
         isDragging = true;
+        hasPanned = false;
     }
 
 
@@ -229,15 +360,15 @@ public class MandelBrot extends JPanel implements MouseInputListener {
     @Override
     //Proof in 2.3
     public void mouseDragged(MouseEvent e) {
-        if (!isDragging || isGenerating) return;
+        if (!isDragging) return;
 
         // Pixel movement
         double dx = dragStartX - e.getX();
         double dy = dragStartY - e.getY();
 
         // Convert to complex plane shift
-        double xCenter = (dx / SCREEN_WIDTH) * (xMax - xMin);
-        double yCenter = (dy / SCREEN_HEIGHT) * (yMax - yMin);
+        double xCenter = (dx / frameWidth) * spanX;
+        double yCenter = (dy / frameHeight) * spanY;
 
         // Shift view window
         xMin += xCenter;
@@ -245,15 +376,24 @@ public class MandelBrot extends JPanel implements MouseInputListener {
         yMin -= yCenter;   // Notice minus because screen y is inverted
         yMax -= yCenter;
 
+        MathContext mc = Perturbation.precisionFor(spanX / frameWidth);
+        centerX = centerX.add(new BigDecimal(xCenter), mc);
+        centerY = centerY.subtract(new BigDecimal(yCenter), mc);
+
         dragStartX = e.getX();
         dragStartY = e.getY();
+        hasPanned = true;
+
+        if (!previewTimer.isRunning()) previewTimer.start();
     }
 
     // Mouse released: stop drag
     @Override
     public void mouseReleased(MouseEvent e) {
-        img=generate();
-        repaint();
+        if (hasPanned) {
+            previewTimer.stop();
+            generate(); // full quality once the input stops
+        }
         isDragging = false;
     }
 
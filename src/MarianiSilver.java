@@ -0,0 +1,85 @@
+/**
+ * Mariani-Silver rectangle subdivision.
+ * Evaluates the border of a rectangle; if every border pixel has the same iteration count the
+ * interior is filled with it without being computed (a connected set cannot hide inside a
+ * uniform border), otherwise the rectangle is split in two and each half is handled the same way.
+ * Results are memoised so the edge shared by two halves is only evaluated once.
+ */
+final class MarianiSilver {
+
+    // Rectangles narrower than this are evaluated pixel by pixel
+    static final int MIN_SIZE = 4;
+
+    // Marker for pixels not evaluated yet (EscapeTime never returns it)
+    private static final int UNSET = Integer.MIN_VALUE;
+
+    private final PixelKernel kernel;
+    private final int x, y, w, h;
+    private final int[] counts;
+
+    private MarianiSilver(PixelKernel kernel, int x, int y, int w, int h) {
+        this.kernel = kernel;
+        this.x = x;
+        this.y = y;
+        this.w = w;
+        this.h = h;
+        this.counts = new int[w * h];
+        java.util.Arrays.fill(counts, UNSET);
+    }
+
+    /**
+     * Iteration counts of the tile [x, x+w) × [y, y+h), indexed (j - y) * w + (i - x).
+     */
+    static int[] render(PixelKernel kernel, int x, int y, int w, int h) {
+        MarianiSilver ms = new MarianiSilver(kernel, x, y, w, h);
+        ms.subdivide(0, 0, w - 1, h - 1);
+        return ms.counts;
+    }
+
+    // Tile-local, inclusive bounds
+    private void subdivide(int x0, int y0, int x1, int y1) {
+        if (x1 - x0 < MIN_SIZE || y1 - y0 < MIN_SIZE) {
+            for (int j = y0; j <= y1; j++)
+                for (int i = x0; i <= x1; i++) eval(i, j);
+            return;
+        }
+
+        int first = eval(x0, y0);
+        boolean uniform = true;
+        for (int i = x0; i <= x1; i++) {
+            uniform &= eval(i, y0) == first;
+            uniform &= eval(i, y1) == first;
+        }
+        for (int j = y0 + 1; j < y1; j++) {
+            uniform &= eval(x0, j) == first;
+            uniform &= eval(x1, j) == first;
+        }
+
+        if (uniform) {
+            for (int j = y0 + 1; j < y1; j++)
+                for (int i = x0 + 1; i < x1; i++) counts[j * w + i] = first;
+            return;
+        }
+
+        // Split along the longer side; the middle row/column belongs to both halves
+        if (x1 - x0 >= y1 - y0) {
+            int xm = (x0 + x1) >>> 1;
+            subdivide(x0, y0, xm, y1);
+            subdivide(xm, y0, x1, y1);
+        } else {
+            int ym = (y0 + y1) >>> 1;
+            subdivide(x0, y0, x1, ym);
+            subdivide(x0, ym, x1, y1);
+        }
+    }
+
+    private int eval(int i, int j) {
+        int k = j * w + i;
+        int n = counts[k];
+        if (n == UNSET) {
+            n = kernel.iterations(x + i, y + j);
+            counts[k] = n;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,359 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Orbit-density (Buddhabrot) renderer: instead of colouring c by its escape time, every point z_n
+ * visited by the orbit of a random c is counted in the pixel it lands in.
+ * - Buddhabrot: orbits of c that escape; anti-Buddhabrot: orbits of c that stay within radius 2 for maxIterations
+ * - c is drawn from an importance grid over [-2, 2]²: cells probed on both sides of the boundary are drawn most,
+ *   cells whose probes contribute nothing least; each orbit is weighted by (uniform density / cell density),
+ *   so the image converges to the same density as uniform sampling, only faster
+ * - Orbits are symmetric under conjugation, so each point is also counted at its mirror image, at half weight each
+ * - Every sampler thread accumulates into its own histogram and adds it into the shared one stripe by stripe,
+ *   under one lock per stripe and starting at a different stripe per thread: no atomics in the inner loop,
+ *   and threads rarely wait for each other
+ * - Runs until a time budget is spent or it is cancelled; snapshot() tone-maps whatever has been merged so far
+ * - Leaves one core to the UI, and backs off while RenderEngine.POOL is rendering an escape-time frame
+ */
+final class OrbitDensity {
+
+    // c is sampled in [-2, 2]² (Proof in 1.1); the importance grid has IMPORTANCE_GRID² cells
+    static final double SAMPLE_RADIUS = 2;
+    static final int IMPORTANCE_GRID = 256;
+    static final int PROBES = 8;
+    static final int PROBE_ITERATIONS = 1000;
+
+    // Relative draw rates: boundary cells, cells whose probes all contribute, cells whose probes contribute nothing
+    static final float BOUNDARY_WEIGHT = 1;
+    static final float CONTRIBUTING_WEIGHT = 0.25f;
+    static final float FLOOR_WEIGHT = 0.02f;
+
+    // Orbits between checks of the budget, and how often a thread adds its histogram into the shared one
+    static final int CHUNK = 256;
+    static final long MERGE_NANOS = 200_000_000L;
+    static final int STRIPES = 64;
+
+    // Pause while an escape-time frame is rendering
+    static final long BACKOFF_MS = 20;
+
+    // Tone mapping: this share of the lit pixels stays below white, brightness = (density / white)^GAMMA
+    static final double WHITE_POINT = 0.999;
+    static final double GAMMA = 1;
+    static final int TONE_BINS = 4096;
+
+    final boolean anti;
+    final double xMin, xMax, yMin, yMax;
+    final int width, height, maxIterations;
+
+    // Shared histogram; stripe s covers [s * stripeLength, (s + 1) * stripeLength) and is guarded by stripeLocks[s]
+    private final double[] histogram;
+    private final Object[] stripeLocks = new Object[STRIPES];
+    private final int stripeLength;
+
+    // Importance grid: cumulative draw weights, and each cell's orbit weight
+    private final double[] cumulative = new double[IMPORTANCE_GRID * IMPORTANCE_GRID];
+    private final float[] orbitWeight = new float[IMPORTANCE_GRID * IMPORTANCE_GRID];
+
+    private final LongAdder orbits = new LongAdder();
+    private final LongAdder plotted = new LongAdder(); // orbits that contributed
+    private final double[] snapshot; // copy of the histogram, only used by snapshot()
+
+    private volatile boolean cancelled;
+    private volatile long start, deadline;
+    private volatile long end = -1;
+    private Thread driver;
+
+    OrbitDensity(boolean anti, double xMin, double xMax, double yMin, double yMax,
+                 int width, int height, int maxIterations) {
+        this.anti = anti;
+        this.xMin = xMin;
+        this.xMax = xMax;
+        this.yMin = yMin;
+        this.yMax = yMax;
+        this.width = width;
+        this.height = height;
+        this.maxIterations = maxIterations;
+        histogram = new double[width * height];
+        snapshot = new double[width * height];
+        stripeLength = (histogram.length + STRIPES - 1) / STRIPES;
+        for (int s = 0; s < STRIPES; s++) stripeLocks[s] = new Object();
+    }
+
+    /**
+     * Headless: java -Djava.awt.headless=true Main --buddhabrot out.png seconds buddhabrot|anti
+     * xMin xMax yMin yMax width height maxIterations
+     */
+    static void run(String[] args) throws IOException, InterruptedException {
+        if (args.length != 10 || !(args[2].equals("buddhabrot") || args[2].equals("anti"))) {
+            System.out.println("Usage: java -Djava.awt.headless=true Main --buddhabrot <out.png> <seconds> buddhabrot|anti "
+                    + "<xMin> <xMax> <yMin> <yMax> <width> <height> <max iterations>");
+            System.exit(2);
+        }
+        int width = Integer.parseInt(args[7]), height = Integer.parseInt(args[8]);
+        OrbitDensity density = new OrbitDensity(args[2].equals("anti"),
+                Double.parseDouble(args[3]), Double.parseDouble(args[4]),
+                Double.parseDouble(args[5]), Double.parseDouble(args[6]),
+                width, height, Integer.parseInt(args[9]));
+        density.start((long) (Double.parseDouble(args[1]) * 1e9));
+        density.await();
+
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        density.snapshot(((DataBufferInt) img.getRaster().getDataBuffer()).getData());
+        ImageIO.write(img, "png", new File(args[0]));
+        System.out.println(density.status());
+    }
+
+    // Starts sampling in the background for budgetNanos
+    synchronized void start(long budgetNanos) {
+        if (driver != null) throw new IllegalStateException("Already started");
+        start = System.nanoTime();
+        deadline = start + budgetNanos;
+        driver = new Thread(this::drive, "orbit-density");
+        driver.setDaemon(true);
+        driver.setPriority(Thread.MIN_PRIORITY);
+        driver.start();
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isDone() {
+        return end >= 0;
+    }
+
+    synchronized void await() throws InterruptedException {
+        if (driver != null) driver.join();
+    }
+
+    long orbits() {
+        return orbits.sum();
+    }
+
+    // Seconds sampled so far (until the end once done)
+    double elapsedSeconds() {
+        long e = end;
+        return ((e >= 0 ? e : System.nanoTime()) - start) / 1e9;
+    }
+
+    String status() {
+        double seconds = elapsedSeconds();
+        return String.format("%s: %,d orbits in %.1f s (%,.0f/s), %,d plotted%s",
+                anti ? "Anti-Buddhabrot" : "Buddhabrot", orbits(), seconds, orbits() / Math.max(seconds, 1e-9),
+                plotted.sum(), isDone() ? "" : ", sampling");
+    }
+
+    // Importance grid, then one sampler per core but one; this thread is one of them
+    private void drive() {
+        try {
+            buildImportance();
+            int samplers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            SplittableRandom seed = new SplittableRandom();
+            List<Thread> threads = new ArrayList<>();
+            for (int k = 1; k < samplers; k++) {
+                SplittableRandom random = seed.split();
+                int first = k * STRIPES / samplers;
+                Thread t = new Thread(() -> sample(random, first), "orbit-density-" + k);
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                t.start();
+                threads.add(t);
+            }
+            sample(seed.split(), 0);
+            for (Thread t : threads) t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            end = System.nanoTime();
+        }
+    }
+
+    private boolean stopping() {
+        return cancelled || System.nanoTime() >= deadline;
+    }
+
+    // Probes every cell and turns the probes into draw weights; cells outside the radius-2 disk are never drawn
+    private void buildImportance() {
+        double cell = 2 * SAMPLE_RADIUS / IMPORTANCE_GRID;
+        int probeMax = Math.min(maxIterations, PROBE_ITERATIONS);
+        float[] weight = new float[cumulative.length];
+        IntStream.range(0, IMPORTANCE_GRID).parallel().forEach(row -> {
+            SplittableRandom random = new SplittableRandom(row);
+            for (int col = 0; col < IMPORTANCE_GRID; col++) {
+                double x0 = -SAMPLE_RADIUS + col * cell, y0 = -SAMPLE_RADIUS + row * cell;
+                // Nearest point of the cell to 0 (Proof in 1.2)
+                double nx = Math.max(x0, Math.min(0, x0 + cell)), ny = Math.max(y0, Math.min(0, y0 + cell));
+                if (nx * nx + ny * ny > SAMPLE_RADIUS * SAMPLE_RADIUS) continue;
+
+                int inside = 0, contributing = 0;
+                for (int p = 0; p < PROBES; p++) {
+                    int n = EscapeTime.mandelbrot(x0 + random.nextDouble() * cell, y0 + random.nextDouble() * cell, probeMax);
+                    if (n == probeMax) inside++;
+                    if (anti ? n == probeMax : n > 0 && n < probeMax) contributing++;
+                }
+                weight[row * IMPORTANCE_GRID + col] = inside > 0 && inside < PROBES ? BOUNDARY_WEIGHT
+                        : contributing == PROBES ? CONTRIBUTING_WEIGHT : FLOOR_WEIGHT;
+            }
+        });
+
+        double total = 0;
+        int drawn = 0;
+        for (int k = 0; k < weight.length; k++) {
+            total += weight[k];
+            cumulative[k] = total;
+            if (weight[k] > 0) drawn++;
+        }
+        // Uniform over the drawn cells would weigh every orbit 1
+        double uniform = total / drawn;
+        for (int k = 0; k < weight.length; k++) orbitWeight[k] = weight[k] > 0 ? (float) (uniform / weight[k]) : 0;
+    }
+
+    // Sampler loop of one thread; first is the stripe its merges start at
+    private void sample(SplittableRandom random, int first) {
+        float[] local = new float[histogram.length];
+        double[] orbit = new double[2 * maxIterations];
+        long lastMerge = System.nanoTime();
+        try {
+            while (!stopping()) {
+                if (renderEngineBusy()) {
+                    Thread.sleep(BACKOFF_MS);
+                    continue;
+                }
+                int contributed = 0;
+                for (int s = 0; s < CHUNK; s++) {
+                    if (plotOrbit(random, orbit, local)) contributed++;
+                }
+                orbits.add(CHUNK);
+                plotted.add(contributed);
+                if (System.nanoTime() - lastMerge >= MERGE_NANOS) {
+                    merge(local, first);
+                    lastMerge = System.nanoTime();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        merge(local, first);
+    }
+
+    private static boolean renderEngineBusy() {
+        return RenderEngine.POOL.getActiveThreadCount() > 0 || RenderEngine.POOL.hasQueuedSubmissions();
+    }
+
+    // Draws c from the importance grid, iterates it and counts its orbit if it contributes
+    private boolean plotOrbit(SplittableRandom random, double[] orbit, float[] local) {
+        double cell = 2 * SAMPLE_RADIUS / IMPORTANCE_GRID;
+        int k = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+        if (k < 0) k = -k - 1;
+        double c_a = -SAMPLE_RADIUS + (k % IMPORTANCE_GRID + random.nextDouble()) * cell;
+        double c_b = -SAMPLE_RADIUS + (k / IMPORTANCE_GRID + random.nextDouble()) * cell;
+
+        // Equation ( (c_a * c_a) + (c_b * c_b) <= 4 ) proof in 1.2
+        if ((c_a * c_a) + (c_b * c_b) > 4) return false;
+        // Interior points never escape: nothing to plot for the Buddhabrot
+        if (!anti && EscapeTime.inCardioidOrBulb(c_a, c_b)) return false;
+
+        double z_a = 0, z_b = 0; // z_n = 0 initial
+        int n = 0;
+        double old_a = 0, old_b = 0;
+        int period = 1, sinceSnapshot = 0;
+
+        // Equation ( (z_a * z_a) + (z_b * z_b) <= 4 ) proof in 1.4
+        while ((z_a * z_a) + (z_b * z_b) <= 4 && n < maxIterations) {
+            // Equations proof in 1.5
+            double zn_a = (z_a * z_a) - (z_b * z_b) + (c_a);
+            double zn_b = 2 * (z_a * z_b) + (c_b);
+
+            z_a = zn_a;
+            z_b = zn_b;
+            orbit[2 * n] = z_a;
+            orbit[2 * n + 1] = z_b;
+            n++;
+
+            // A cycling orbit never escapes (see EscapeTime.mandelbrot); the anti-Buddhabrot needs all of it
+            if (!anti) {
+                if (z_a == old_a && z_b == old_b) return false;
+                if (++sinceSnapshot == period) {
+                    old_a = z_a;
+                    old_b = z_b;
+                    sinceSnapshot = 0;
+                    period <<= 1;
+                }
+            }
+        }
+        if ((n == maxIterations) != anti) return false;
+
+        float half = orbitWeight[k] / 2;
+        double scaleX = width / (xMax - xMin), scaleY = height / (yMax - yMin);
+        for (int i = 0; i < n; i++) {
+            double x = orbit[2 * i], y = orbit[2 * i + 1];
+            if (x < xMin || x >= xMax) continue;
+            int px = Math.min(width - 1, (int) ((x - xMin) * scaleX));
+            // Raster rows grow downwards; the conjugate orbit point sits at -y
+            if (y > yMin && y <= yMax) local[Math.min(height - 1, (int) ((yMax - y) * scaleY)) * width + px] += half;
+            if (-y > yMin && -y <= yMax) local[Math.min(height - 1, (int) ((yMax + y) * scaleY)) * width + px] += half;
+        }
+        return true;
+    }
+
+    // Adds local into the shared histogram stripe by stripe, starting at stripe first, and clears it
+    private void merge(float[] local, int first) {
+        for (int s = 0; s < STRIPES; s++) {
+            int stripe = (first + s) % STRIPES;
+            int from = stripe * stripeLength, to = Math.min(histogram.length, from + stripeLength);
+            synchronized (stripeLocks[stripe]) {
+                for (int k = from; k < to; k++) histogram[k] += local[k];
+            }
+            Arrays.fill(local, from, to, 0);
+        }
+    }
+
+    /**
+     * Tone-maps the histogram merged so far into pixels (TYPE_INT_RGB raster, width × height, grey levels).
+     * Brightness follows a power of the density with white at the WHITE_POINT quantile of lit pixels,
+     * so a few very hot pixels do not leave the rest of the image dark.
+     */
+    synchronized void snapshot(int[] pixels) {
+        for (int s = 0; s < STRIPES; s++) {
+            int from = s * stripeLength, to = Math.min(histogram.length, from + stripeLength);
+            synchronized (stripeLocks[s]) {
+                System.arraycopy(histogram, from, snapshot, from, to - from);
+            }
+        }
+        double max = 0;
+        for (double d : snapshot) max = Math.max(max, d);
+        if (max == 0) {
+            Arrays.fill(pixels, 0);
+            return;
+        }
+
+        // Quantile from a histogram of sqrt(density / max), which spreads the long tail over the bins
+        int[] bins = new int[TONE_BINS];
+        int lit = 0;
+        for (double d : snapshot) {
+            if (d > 0) {
+                bins[Math.min(TONE_BINS - 1, (int) (Math.sqrt(d / max) * TONE_BINS))]++;
+                lit++;
+            }
+        }
+        long below = 0;
+        int bin = 0;
+        while (bin < TONE_BINS - 1 && below + bins[bin] < WHITE_POINT * lit) below += bins[bin++];
+        double root = (bin + 1) / (double) TONE_BINS;
+        double white = root * root * max;
+
+        for (int k = 0; k < pixels.length; k++) {
+            int v = (int) (255 * Math.min(1, Math.pow(snapshot[k] / white, GAMMA)));
+            pixels[k] = (v << 16) | (v << 8) | v;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+import java.awt.*;
+
+/**
+ * Iteration-count → RGB lookup table.
+ * Precomputes a ColourScheme once per maxIterations so the colouring loop only does an array read.
+ * Entries are stored as TYPE_INT_RGB raster values (no alpha byte), so they can be written
+ * straight into a DataBufferInt and read back exactly as setRGB would have stored them.
+ * - offset shifts escaped counts before lookup (colour cycling)
+ * - an equalised palette spreads the counts of one frame evenly over the gradient (histogram equalisation)
+ */
+final class Palette {
+
+    // Colour used for points rejected by the radius-2 test
+    static final int RUST = new Color(28, 1, 0).getRGB() & 0xFFFFFF; // Reddish-brown fallback
+
+    // Gradient length an equalised palette is spread over
+    static final int EQUALISED_RANGE = 1024;
+
+    // Last palette built; frames usually reuse the same settings
+    private static volatile Palette cached;
+
+    final ColourScheme scheme;
+    final int maxIterations;
+    final int offset;
+    private final boolean equalised;
+    private final int[] colors;
+
+    private Palette(ColourScheme scheme, int maxIterations, int offset, int[] remap) {
+        this.scheme = scheme;
+        this.maxIterations = maxIterations;
+        this.offset = offset;
+        this.equalised = remap != null;
+        colors = new int[maxIterations + 1];
+
+        // Coloring: black if inside the set, colorful gradient if outside
+        for (int n = 0; n < maxIterations; n++) {
+            colors[n] = scheme.rgb((remap != null ? remap[n] : n) + offset) & 0xFFFFFF;
+        }
+        colors[maxIterations] = 0;
+    }
+
+    // The original rainbow, as used by the headless renderer
+    static Palette forMaxIterations(int maxIterations) {
+        return of(ColourScheme.CLASSIC, maxIterations, 0);
+    }
+
+    static Palette of(ColourScheme scheme, int maxIterations, int offset) {
+        Palette p = cached;
+        if (p == null || p.equalised || p.scheme != scheme || p.maxIterations != maxIterations || p.offset != offset) {
+            p = new Palette(scheme, maxIterations, offset, null);
+            cached = p;
+        }
+        return p;
+    }
+
+    /**
+     * Histogram-equalised palette for one frame: escaped count n is drawn as the colour at
+     * (share of escaped pixels with count <= n) × EQUALISED_RANGE. Unrendered (negative) entries are ignored.
+     */
+    static Palette equalised(ColourScheme scheme, int maxIterations, int offset, int[] counts) {
+        long[] histogram = new long[maxIterations + 1];
+        for (int n : counts) if (n >= 0) histogram[n]++;
+
+        long escaped = 0;
+        for (int n = 0; n < maxIterations; n++) escaped += histogram[n];
+
+        int[] remap = new int[maxIterations];
+        long cumulative = 0;
+        for (int n = 0; n < maxIterations; n++) {
+            cumulative += histogram[n];
+            remap[n] = escaped == 0 ? n : (int) (cumulative * EQUALISED_RANGE / escaped);
+        }
+        return new Palette(scheme, maxIterations, offset, remap);
+    }
+
+    // Raster value for an EscapeTime result
+    int rgb(int numberOfIterations) {
+        return numberOfIterations == EscapeTime.OUTSIDE_RADIUS ? RUST : colors[numberOfIterations];
+    }
+}
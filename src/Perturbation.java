@@ -0,0 +1,243 @@
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Deep-zoom Mandelbrot kernel based on perturbation theory.
+ * - One reference orbit Z_n for the view centre C is iterated in double-double or BigDecimal (see Precision)
+ * - Every pixel c = C + dc only tracks its offset from that orbit in doubles:
+ *   z_n = Z_n + d_n,  d_{n+1} = 2 Z_n d_n + d_n^2 + dc
+ *   so doubles only have to hold the tiny offsets, not the full coordinates
+ * - Series approximation d_n ≈ A_n dc + B_n dc^2 + C_n dc^3 skips the first iterations for all pixels
+ * - Glitches (pixel orbit passing closer to 0 than its offset, or running past the end of the
+ *   reference) are fixed by rebasing: d = z and the reference index restarts at 0
+ */
+final class Perturbation {
+
+    // Switch to perturbation once one pixel spans less than this (doubles turn blocky around 1e-16)
+    static final double DEEP_ZOOM_SPACING = 1e-13;
+
+    // Series approximation is trusted while the cubic term stays this small relative to the quadratic one
+    static final double SERIES_TOLERANCE = 1e-6;
+
+    final BigDecimal centerX, centerY;
+    final double maxOffset; // largest |dc| of any pixel in the frame
+    final int maxIterations;
+    final Precision precision; // DOUBLE_DOUBLE or ARBITRARY: arithmetic of the reference orbit
+
+    // Reference orbit and series state, built lazily by the first worker that needs them
+    private volatile Reference reference;
+
+    Perturbation(BigDecimal centerX, BigDecimal centerY, double maxOffset, int maxIterations, Precision precision) {
+        if (!precision.isDeep()) throw new IllegalArgumentException("Reference orbits run in double-double or BigDecimal, not " + precision);
+        this.precision = precision;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.maxOffset = maxOffset;
+        this.maxIterations = maxIterations;
+    }
+
+    static boolean isNeeded(double pixelSpacing) {
+        return pixelSpacing < DEEP_ZOOM_SPACING;
+    }
+
+    // Decimal digits needed to tell neighbouring pixels apart, plus guard digits
+    static MathContext precisionFor(double pixelSpacing) {
+        int digits = (int) Math.ceil(-Math.log10(pixelSpacing)) + 20;
+        return new MathContext(Math.max(digits, 34));
+    }
+
+    // Kernel for a width × height frame spanning spanX × spanY around the centre (no distance estimates)
+    Kernel kernel(int width, int height, double spanX, double spanY) {
+        return new Kernel(width, height, spanX, spanY);
+    }
+
+    final class Kernel implements PixelKernel, SubpixelKernel {
+        private final int width, height;
+        private final double spanX, spanY;
+
+        private Kernel(int width, int height, double spanX, double spanY) {
+            this.width = width;
+            this.height = height;
+            this.spanX = spanX;
+            this.spanY = spanY;
+        }
+
+        @Override
+        public int iterations(int i, int j) {
+            return sample(i, j, null);
+        }
+
+        @Override
+        public Precision precision() {
+            return precision;
+        }
+
+        @Override
+        public int sample(double x, double y, double[] distance) {
+            if (distance != null) distance[0] = Double.NaN;
+            return Perturbation.this.iterations((x / width - 0.5) * spanX, (y / height - 0.5) * spanY);
+        }
+    }
+
+    /**
+     * Escape-time iteration count of c = centre + (dc_a + dc_b i), same meaning as EscapeTime.mandelbrot.
+     */
+    int iterations(double dc_a, double dc_b) {
+        Reference ref = reference();
+        double[] zr = ref.zr, zi = ref.zi;
+
+        // Equation ( (c_a * c_a) + (c_b * c_b) <= 4 ) proof in 1.2
+        double c_a = ref.c_a + dc_a, c_b = ref.c_b + dc_b;
+        if ((c_a * c_a) + (c_b * c_b) > 4) return EscapeTime.OUTSIDE_RADIUS;
+
+        // Start after the skipped iterations, with d_n from the series
+        int n = ref.skip;
+        int m = n;
+        double d_a, d_b;
+        {
+            double dc2_a = dc_a * dc_a - dc_b * dc_b, dc2_b = 2 * dc_a * dc_b;
+            double dc3_a = dc2_a * dc_a - dc2_b * dc_b, dc3_b = dc2_a * dc_b + dc2_b * dc_a;
+            d_a = ref.a_a * dc_a - ref.a_b * dc_b + ref.b_a * dc2_a - ref.b_b * dc2_b + ref.c3_a * dc3_a - ref.c3_b * dc3_b;
+            d_b = ref.a_a * dc_b + ref.a_b * dc_a + ref.b_a * dc2_b + ref.b_b * dc2_a + ref.c3_a * dc3_b + ref.c3_b * dc3_a;
+        }
+        double z_a = zr[m] + d_a, z_b = zi[m] + d_b;
+
+        // Equation ( (z_a * z_a) + (z_b * z_b) <= 4 ) proof in 1.4
+        while ((z_a * z_a) + (z_b * z_b) <= 4 && n < maxIterations) {
+            // d_{n+1} = 2 Z_m d_n + d_n^2 + dc
+            double nd_a = 2 * (zr[m] * d_a - zi[m] * d_b) + (d_a * d_a - d_b * d_b) + dc_a;
+            double nd_b = 2 * (zr[m] * d_b + zi[m] * d_a) + 2 * d_a * d_b + dc_b;
+            d_a = nd_a;
+            d_b = nd_b;
+            m++;
+            n++;
+
+            z_a = zr[m] + d_a;
+            z_b = zi[m] + d_b;
+
+            // Rebase when the full orbit is closer to 0 than the offset, or at the last stored Z
+            // (an escaped reference has no Z_length, so the next step would read an unfilled 0)
+            if (m == ref.length - 1 || (z_a * z_a) + (z_b * z_b) < (d_a * d_a) + (d_b * d_b)) {
+                d_a = z_a;
+                d_b = z_b;
+                m = 0;
+            }
+        }
+        return n;
+    }
+
+    private Reference reference() {
+        Reference ref = reference;
+        if (ref == null) {
+            synchronized (this) {
+                ref = reference;
+                if (ref == null) {
+                    ref = new Reference(centerX, centerY, maxIterations, maxOffset, precision);
+                    reference = ref;
+                }
+            }
+        }
+        return ref;
+    }
+
+    /**
+     * Reference orbit Z_0..Z_{length-1} in doubles (iterated in double-double or BigDecimal) and
+     * the series coefficients A, B, C at the skip iteration.
+     */
+    private static final class Reference {
+        final double c_a, c_b;
+        final double[] zr, zi;
+        final int length;
+        int skip;
+        double a_a, a_b, b_a, b_b, c3_a, c3_b;
+
+        Reference(BigDecimal cx, BigDecimal cy, int maxIterations, double maxOffset, Precision precision) {
+            c_a = cx.doubleValue();
+            c_b = cy.doubleValue();
+            zr = new double[maxIterations + 1];
+            zi = new double[maxIterations + 1];
+            length = precision == Precision.DOUBLE_DOUBLE
+                    ? iterateDoubleDouble(cx, cy, maxIterations)
+                    : iterateBigDecimal(cx, cy, maxIterations, precisionFor(maxOffset / 1e4));
+            computeSeries(maxOffset);
+        }
+
+        // Fills zr, zi and returns the orbit length
+        private int iterateBigDecimal(BigDecimal cx, BigDecimal cy, int maxIterations, MathContext mc) {
+            BigDecimal x = BigDecimal.ZERO, y = BigDecimal.ZERO;
+            int n = 0;
+            while (n < maxIterations) {
+                double xd = x.doubleValue(), yd = y.doubleValue();
+                zr[n] = xd;
+                zi[n] = yd;
+                n++;
+                if (xd * xd + yd * yd > 4) break; // reference escaped; pixels past here rebase
+
+                // Equations proof in 1.5
+                BigDecimal nx = x.multiply(x, mc).subtract(y.multiply(y, mc), mc).add(cx, mc);
+                BigDecimal ny = x.multiply(y, mc).multiply(BigDecimal.valueOf(2), mc).add(cy, mc);
+                x = nx;
+                y = ny;
+            }
+            if (n == maxIterations) {
+                zr[n] = x.doubleValue();
+                zi[n] = y.doubleValue();
+                n++;
+            }
+            return n;
+        }
+
+        // Same orbit in double-double: enough while pixels are wider than Precision.DOUBLE_DOUBLE_SPACING
+        private int iterateDoubleDouble(BigDecimal cx, BigDecimal cy, int maxIterations) {
+            DoubleDouble ca = DoubleDouble.of(cx), cb = DoubleDouble.of(cy);
+            DoubleDouble x = DoubleDouble.ZERO, y = DoubleDouble.ZERO;
+            int n = 0;
+            while (n < maxIterations) {
+                double xd = x.doubleValue(), yd = y.doubleValue();
+                zr[n] = xd;
+                zi[n] = yd;
+                n++;
+                if (xd * xd + yd * yd > 4) break; // reference escaped; pixels past here rebase
+
+                // Equations proof in 1.5
+                DoubleDouble nx = x.multiply(x).subtract(y.multiply(y)).add(ca);
+                DoubleDouble ny = x.multiply(y).twice().add(cb);
+                x = nx;
+                y = ny;
+            }
+            if (n == maxIterations) {
+                zr[n] = x.doubleValue();
+                zi[n] = y.doubleValue();
+                n++;
+            }
+            return n;
+        }
+
+        /**
+         * A_{n+1} = 2 Z_n A_n + 1,  B_{n+1} = 2 Z_n B_n + A_n^2,  C_{n+1} = 2 Z_n C_n + 2 A_n B_n
+         * Advances while |C| r^3 stays below SERIES_TOLERANCE × |B| r^2 (r = largest pixel offset).
+         */
+        private void computeSeries(double r) {
+            double aa = 0, ab = 0, ba = 0, bb = 0, ca = 0, cb = 0;
+            int n = 0;
+            while (n + 1 < length - 1) {
+                double za = zr[n], zb = zi[n];
+                double naa = 2 * (za * aa - zb * ab) + 1;
+                double nab = 2 * (za * ab + zb * aa);
+                double nba = 2 * (za * ba - zb * bb) + (aa * aa - ab * ab);
+                double nbb = 2 * (za * bb + zb * ba) + 2 * aa * ab;
+                double nca = 2 * (za * ca - zb * cb) + 2 * (aa * ba - ab * bb);
+                double ncb = 2 * (za * cb + zb * ca) + 2 * (aa * bb + ab * ba);
+
+                double cubic = Math.hypot(nca, ncb) * r * r * r;
+                double quadratic = Math.hypot(nba, nbb) * r * r;
+                if (!(cubic <= SERIES_TOLERANCE * quadratic)) break;
+
+                aa = naa; ab = nab; ba = nba; bb = nbb; ca = nca; cb = ncb;
+                n++;
+            }
+            skip = n;
+            a_a = aa; a_b = ab; b_a = ba; b_b = bb; c3_a = ca; c3_b = cb;
+        }
+    }
+}
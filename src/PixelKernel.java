@@ -0,0 +1,22 @@
+/**
+ * Per-pixel work handed to the RenderEngine.
+ * (i, j) are in complex-plane order: i grows to the right, j grows upwards from the bottom row.
+ * Returns an escape-time iteration count as produced by EscapeTime.
+ */
+@FunctionalInterface
+interface PixelKernel {
+    int iterations(int i, int j);
+
+    /**
+     * Iteration counts of the column run (i, j) .. (i, j + count - 1) into out[0 .. count).
+     * Kernels that can evaluate several pixels at once (SIMD) override this.
+     */
+    default void iterations(int i, int j, int count, int[] out) {
+        for (int k = 0; k < count; k++) out[k] = iterations(i, j + k);
+    }
+
+    // Arithmetic tier the counts are computed in, for reporting
+    default Precision precision() {
+        return Precision.DOUBLE;
+    }
+}
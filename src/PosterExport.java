@@ -0,0 +1,240 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Poster export: renders views far larger than the heap (32k × 32k and up) straight into a PNG file.
+ *
+ *   java -Djava.awt.headless=true Main --poster out.png mandelbrot xMin xMax yMin yMax width height maxIterations
+ *
+ * The view is rendered in row bands of at most BAND_PIXELS pixels, and each band is filtered, deflated and
+ * appended as one IDAT chunk before the next is rendered, so memory use depends on the width, not the height.
+ * Every band ends on a full deflate flush, which makes the file up to that point a resumable prefix:
+ * out.png.part records the view, the bands done, the file length and the running Adler-32 of the image data.
+ * Running the same command again after an interruption truncates to that length and continues with the next band.
+ */
+final class PosterExport {
+
+    // Pixels rendered per band (16 MB of RGB plus 16 MB of iteration counts)
+    static final int BAND_PIXELS = 1 << 22;
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int ADLER_MOD = 65521;
+
+    private PosterExport() {}
+
+    static void run(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java -Djava.awt.headless=true Main --poster <out.png> <view, as in --batch files>");
+            System.exit(2);
+        }
+        String line = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+        export(BatchRender.parse(Collections.singletonList(line)).get(0), new File(args[0]));
+    }
+
+    // Rows per band: a whole number of tiles when the width allows it
+    static int bandHeight(FractalView view) {
+        int rows = Math.max(1, BAND_PIXELS / view.width);
+        if (rows >= RenderEngine.TILE_SIZE) rows -= rows % RenderEngine.TILE_SIZE;
+        return Math.min(rows, view.height);
+    }
+
+    static void export(FractalView view, File file) throws IOException {
+        int bandHeight = bandHeight(view);
+        int bands = (view.height + bandHeight - 1) / bandHeight;
+        File progressFile = new File(file.getPath() + ".part");
+        Progress progress = Progress.read(progressFile, view, bandHeight);
+
+        long start = System.nanoTime();
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            if (progress == null) {
+                out.setLength(0);
+                out.write(SIGNATURE);
+                writeChunk(out, "IHDR", header(view.width, view.height));
+                // zlib header: deflate, 32K window, default compression; the blocks follow in IDAT chunks
+                writeChunk(out, "IDAT", new byte[]{0x78, (byte) 0x9C});
+                progress = new Progress(view, bandHeight, 0, out.getFilePointer(), 1);
+                progress.write(progressFile);
+            } else {
+                System.out.println("Resuming " + file + " at band " + (progress.bandsDone + 1) + " of " + bands);
+                out.setLength(progress.length);
+                out.seek(progress.length);
+            }
+
+            PixelKernel kernel = view.kernel();
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            long adler = progress.adler;
+            try {
+                for (int band = progress.bandsDone; band < bands; band++) {
+                    int y0 = band * bandHeight;
+                    int h = Math.min(bandHeight, view.height - y0);
+                    BufferedImage img = renderBand(view, kernel, y0, h);
+
+                    byte[] raw = scanlines(((DataBufferInt) img.getRaster().getDataBuffer()).getData(), view.width, h);
+                    adler = adler32(adler, raw);
+                    deflater.setInput(raw);
+                    writeChunk(out, "IDAT", drain(deflater, Deflater.FULL_FLUSH));
+
+                    // Band safely on disk before the marker moves past it
+                    out.getFD().sync();
+                    progress = new Progress(view, bandHeight, band + 1, out.getFilePointer(), adler);
+                    progress.write(progressFile);
+
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("Band %d/%d (rows %d-%d) written, %.1f s%n", band + 1, bands, y0, y0 + h - 1, seconds);
+                }
+
+                // Final empty block, Adler-32 of all scanlines, end of image
+                deflater.finish();
+                ByteArrayOutputStream tail = new ByteArrayOutputStream();
+                tail.write(drain(deflater, Deflater.NO_FLUSH));
+                for (int shift = 24; shift >= 0; shift -= 8) tail.write((int) (adler >>> shift));
+                writeChunk(out, "IDAT", tail.toByteArray());
+                writeChunk(out, "IEND", new byte[0]);
+                out.setLength(out.getFilePointer());
+            } finally {
+                deflater.end();
+            }
+        }
+        Files.deleteIfExists(progressFile.toPath());
+        System.out.printf("%s: %dx%d in %.1f s -> %s%n", view, view.width, view.height,
+                (System.nanoTime() - start) / 1e9, file);
+    }
+
+    /**
+     * Raster rows [y0, y0 + h) of view. Rows count down from the top while kernel j counts up from the bottom,
+     * so band row j maps to view row j + (height - y0 - h).
+     */
+    private static BufferedImage renderBand(FractalView view, PixelKernel kernel, int y0, int h) {
+        int offset = view.height - y0 - h;
+        PixelKernel band = new PixelKernel() {
+            @Override
+            public int iterations(int i, int j) {
+                return kernel.iterations(i, j + offset);
+            }
+
+            @Override
+            public void iterations(int i, int j, int count, int[] out) {
+                kernel.iterations(i, j + offset, count, out);
+            }
+        };
+        BufferedImage img = new BufferedImage(view.width, h, BufferedImage.TYPE_INT_RGB);
+        RenderEngine.render(img, band, view.maxIterations);
+        return img;
+    }
+
+    // PNG scanlines with the Sub filter: each byte minus the same channel of the pixel to its left
+    private static byte[] scanlines(int[] pixels, int width, int h) {
+        byte[] raw = new byte[h * (1 + 3 * width)];
+        int p = 0;
+        for (int y = 0; y < h; y++) {
+            raw[p++] = 1;
+            int left = 0;
+            for (int x = 0; x < width; x++) {
+                int rgb = pixels[y * width + x];
+                raw[p++] = (byte) ((rgb >> 16) - (left >> 16));
+                raw[p++] = (byte) ((rgb >> 8) - (left >> 8));
+                raw[p++] = (byte) (rgb - left);
+                left = rgb;
+            }
+        }
+        return raw;
+    }
+
+    private static byte[] drain(Deflater deflater, int flush) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[1 << 16];
+        int n;
+        // A flush is complete once deflate() leaves room in the buffer
+        do {
+            n = deflater.deflate(buf, 0, buf.length, flush);
+            out.write(buf, 0, n);
+        } while (n == buf.length || (flush == Deflater.NO_FLUSH && !deflater.finished()));
+        return out.toByteArray();
+    }
+
+    // java.util.zip.Adler32 cannot be seeded, and a resumed export has to continue the checksum
+    private static long adler32(long adler, byte[] data) {
+        long a = adler & 0xFFFF, b = adler >>> 16;
+        int k = 0;
+        while (k < data.length) {
+            int end = Math.min(data.length, k + 5552); // largest run before b can overflow
+            for (; k < end; k++) {
+                a += data[k] & 0xFF;
+                b += a;
+            }
+            a %= ADLER_MOD;
+            b %= ADLER_MOD;
+        }
+        return b << 16 | a;
+    }
+
+    private static byte[] header(int width, int height) {
+        return new byte[]{
+                (byte) (width >>> 24), (byte) (width >>> 16), (byte) (width >>> 8), (byte) width,
+                (byte) (height >>> 24), (byte) (height >>> 16), (byte) (height >>> 8), (byte) height,
+                8, 2, 0, 0, 0 // 8 bits per channel, RGB, deflate, adaptive filtering, no interlace
+        };
+    }
+
+    private static void writeChunk(RandomAccessFile out, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+
+    // Contents of the .part file: the export can resume only if view and band height are unchanged
+    private static final class Progress {
+        final String view;
+        final int bandHeight, bandsDone;
+        final long length, adler;
+
+        Progress(FractalView view, int bandHeight, int bandsDone, long length, long adler) {
+            this(view.toString(), bandHeight, bandsDone, length, adler);
+        }
+
+        private Progress(String view, int bandHeight, int bandsDone, long length, long adler) {
+            this.view = view;
+            this.bandHeight = bandHeight;
+            this.bandsDone = bandsDone;
+            this.length = length;
+            this.adler = adler;
+        }
+
+        static Progress read(File file, FractalView view, int bandHeight) throws IOException {
+            if (!file.isFile()) return null;
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            if (lines.size() != 5 || !lines.get(0).equals(view.toString())
+                    || Integer.parseInt(lines.get(1)) != bandHeight) {
+                System.out.println("Ignoring " + file + ": it belongs to a different export");
+                return null;
+            }
+            return new Progress(lines.get(0), bandHeight, Integer.parseInt(lines.get(2)),
+                    Long.parseLong(lines.get(3)), Long.parseLong(lines.get(4)));
+        }
+
+        // Written next to the marker and moved over it, so a crash never leaves half a marker
+        void write(File file) throws IOException {
+            File tmp = new File(file.getPath() + ".tmp");
+            Files.write(tmp.toPath(), Arrays.asList(view, String.valueOf(bandHeight), String.valueOf(bandsDone),
+                    String.valueOf(length), String.valueOf(adler)), StandardCharsets.UTF_8);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Arithmetic tier a frame is iterated in, chosen from its pixel spacing (coordinates lie within |c| <= 2):
+ * - FLOAT: shallow Mandelbrot views; half the bytes per lane, so twice the SIMD lanes of double
+ * - DOUBLE: the plain escape-time kernels
+ * - DOUBLE_DOUBLE: perturbation around a reference orbit iterated in double-double (~32 digits)
+ * - ARBITRARY: perturbation around a reference orbit iterated in BigDecimal
+ * Every tier keeps a wide margin over the spacing where it would start to merge neighbouring pixels;
+ * PrecisionCheck compares each tier with the next one.
+ */
+enum Precision {
+    FLOAT("float"),
+    DOUBLE("double"),
+    DOUBLE_DOUBLE("double-double"),
+    ARBITRARY("BigDecimal");
+
+    // Float while a pixel spans at least this: float's spacing near |c| = 2 is 2.4e-7, so a pixel is ~4000 ulps;
+    // at 2.5e-4 rounding already moved 1.8% of the seahorse valley's pixels (PrecisionCheck).
+    // Mandelbrot only: a Julia orbit starts at the pixel and keeps adding a rounded c, and its error builds up
+    // with the iterations (3.2% of pixels off for c = -0.7+0.27015i at the default window and 1000 iterations)
+    static final double FLOAT_SPACING = 1e-3;
+
+    // Double while a pixel spans at least this. Doubles still resolve pixels down to Perturbation.DEEP_ZOOM_SPACING,
+    // but chaotic orbits amplify their rounding (11% of pixels off at 1e-13 near a Misiurewicz point), and a
+    // double-double reference costs no more per pixel since the offsets are iterated in double
+    static final double DOUBLE_SPACING = 1e-9;
+
+    // Double-double resolves ~1e-32 near |c| = 2; keep 4 digits to spare
+    static final double DOUBLE_DOUBLE_SPACING = 1e-28;
+
+    // Tier used regardless of spacing, null for automatic (selected from the control bar)
+    static volatile Precision forced = null;
+
+    private final String label;
+
+    Precision(String label) {
+        this.label = label;
+    }
+
+    static Precision select(double pixelSpacing) {
+        Precision p = forced;
+        if (p != null) return p;
+        if (pixelSpacing >= FLOAT_SPACING) return FLOAT;
+        if (pixelSpacing >= DOUBLE_SPACING) return DOUBLE;
+        if (pixelSpacing >= DOUBLE_DOUBLE_SPACING) return DOUBLE_DOUBLE;
+        return ARBITRARY;
+    }
+
+    // Tiers that go through the perturbation kernel
+    boolean isDeep() {
+        return this == DOUBLE_DOUBLE || this == ARBITRARY;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,97 @@
+import java.awt.image.BufferedImage;
+import java.math.BigDecimal;
+
+/**
+ * Self-check of the arithmetic tiers, runnable headless with no external libraries:
+ *
+ *   java -Djava.awt.headless=true PrecisionCheck
+ *
+ * Renders each case in a tier and in the next higher one and compares the iteration counts pixel by pixel.
+ * A pixel disagrees when the counts differ by more than COUNT_TOLERANCE or only one of them is interior;
+ * rounding legitimately moves some boundary pixels, so a case passes while at most MAX_DISAGREEING of its
+ * pixels disagree. Each case sits at the shallow end of the lower tier's range, where it is least accurate.
+ * Exits with status 1 if any case fails.
+ */
+final class PrecisionCheck {
+
+    static final int COUNT_TOLERANCE = 2;
+    static final double MAX_DISAGREEING = 0.01;
+    static final int WIDTH = 640, HEIGHT = 480;
+
+    private static final String DEEP_X = "-0.743643887037158704752191506114774";
+    private static final String DEEP_Y = "0.131825904205311970493132056385139";
+
+    private PrecisionCheck() {}
+
+    public static void main(String[] args) {
+        boolean ok = true;
+        System.out.printf("%-30s %-28s %10s %12s %10s%n", "case", "tiers", "spacing", "disagreeing", "max diff");
+
+        ok &= check("full set", false, 0, 0, "-0.75", "0", 3.5, 1000, Precision.FLOAT);
+        ok &= check("seahorse valley", false, 0, 0, "-0.7435", "0.1314", Precision.FLOAT_SPACING * WIDTH, 2000, Precision.FLOAT);
+        // The panels' default window and iteration limit, in the tier FractalView selects for them
+        ok &= check("mandelbrot default view", false, 0, 0, "0", "0", 5, 5000, null);
+        ok &= check("julia -0.7+0.27015i", true, -0.7, 0.27015, "0", "0", 5, 5000, null);
+        ok &= check("julia -0.8+0.156i", true, -0.8, 0.156, "0", "0", 5, 5000, null);
+        ok &= check("julia -0.4+0.6i", true, -0.4, 0.6, "0", "0", 5, 5000, null);
+        ok &= check("julia -0.123+0.745i", true, -0.123, 0.745, "0", "0", 5, 5000, null);
+        ok &= check("double at 1e-9", false, 0, 0, DEEP_X, DEEP_Y, 1.1 * Precision.DOUBLE_SPACING * WIDTH, 3000, Precision.DOUBLE);
+        // Centre escapes after a few iterations, so perturbed pixels outlive the reference and must rebase
+        ok &= check("escaping reference", false, 0, 0, "-2.0", "0.01", 0.02, 3000, Precision.DOUBLE);
+        ok &= check("double-double at 1e-20", false, 0, 0, DEEP_X, DEEP_Y, 1e-20 * WIDTH, 5000, Precision.DOUBLE_DOUBLE);
+        ok &= check("double-double at 1e-28", false, 0, 0, DEEP_X, DEEP_Y, 1.1 * Precision.DOUBLE_DOUBLE_SPACING * WIDTH, 5000, Precision.DOUBLE_DOUBLE);
+
+        System.out.println(ok ? "All tiers agree with the next one" : "Some tiers disagree");
+        if (!ok) System.exit(1);
+    }
+
+    /**
+     * Compares tier with the next higher one on a WIDTH × HEIGHT frame spanning spanX around the centre
+     * (c = c_a + c_b i for Julia). A null tier is the one FractalView selects, compared with double.
+     */
+    private static boolean check(String name, boolean julia, double c_a, double c_b, String centerX, String centerY,
+                                 double spanX, int max, Precision tier) {
+        PixelKernel lowKernel = kernel(julia, c_a, c_b, centerX, centerY, spanX, max, tier);
+        Precision next = tier == null ? Precision.DOUBLE : Precision.values()[tier.ordinal() + 1];
+        int[] low = render(lowKernel, max);
+        int[] high = render(kernel(julia, c_a, c_b, centerX, centerY, spanX, max, next), max);
+
+        int disagreeing = 0, maxDiff = 0;
+        for (int k = 0; k < low.length; k++) {
+            int diff = Math.abs(low[k] - high[k]);
+            if (diff > COUNT_TOLERANCE || (low[k] >= max) != (high[k] >= max)) disagreeing++;
+            if (low[k] < max && high[k] < max) maxDiff = Math.max(maxDiff, diff);
+        }
+        double share = disagreeing / (double) low.length;
+        boolean pass = share <= MAX_DISAGREEING;
+        System.out.printf("%-30s %-28s %10.1e %11.3f%% %10d  %s%n", name, lowKernel.precision() + " vs " + next,
+                spanX / WIDTH, share * 100, maxDiff, pass ? "ok" : "FAIL");
+        return pass;
+    }
+
+    // Kernel for the frame in precision, or as FractalView selects it when precision is null
+    private static PixelKernel kernel(boolean julia, double c_a, double c_b, String centerX, String centerY,
+                                      double spanX, int max, Precision precision) {
+        double spanY = spanX * HEIGHT / WIDTH;
+        if (precision != null && precision.isDeep()) {
+            Perturbation deep = new Perturbation(new BigDecimal(centerX), new BigDecimal(centerY),
+                    Math.hypot(spanX, spanY) / 2, max, precision);
+            return deep.kernel(WIDTH, HEIGHT, spanX, spanY);
+        }
+        double cx = Double.parseDouble(centerX), cy = Double.parseDouble(centerY);
+        double xMin = cx - spanX / 2, xMax = cx + spanX / 2, yMin = cy - spanY / 2, yMax = cy + spanY / 2;
+        if (precision == null) {
+            return julia
+                    ? FractalView.julia(c_a, c_b, xMin, xMax, yMin, yMax, WIDTH, HEIGHT, max).kernel()
+                    : FractalView.mandelbrot(xMin, xMax, yMin, yMax, WIDTH, HEIGHT, max).kernel();
+        }
+        return julia
+                ? EscapeTimeKernel.julia(xMin, xMax, yMin, yMax, WIDTH, HEIGHT, c_a, c_b, max, precision)
+                : EscapeTimeKernel.mandelbrot(xMin, xMax, yMin, yMax, WIDTH, HEIGHT, max, null, precision);
+    }
+
+    private static int[] render(PixelKernel kernel, int max) {
+        BufferedImage img = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        return RenderEngine.render(img, kernel, max, RenderMode.BRUTE_FORCE).counts();
+    }
+}
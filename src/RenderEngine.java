@@ -0,0 +1,533 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Tiled multi-core renderer shared by MandelBrot and Julia.
+ * - Splits the image into tiles of at most TILE_SIZE × TILE_SIZE pixels
+ * - Tiles are scheduled on a work-stealing ForkJoinPool, so cores that finish
+ *   cheap tiles (outside the set) steal expensive ones (near the boundary)
+ * - Each pixel is evaluated by the same kernel as the old serial loop, so the output is identical
+ * - Pixels are written straight into the int[] raster of a TYPE_INT_RGB image through a Palette,
+ *   so the hot loop allocates nothing
+ * - Each job keeps the frame's raw iteration counts, so it can be recoloured without re-iterating
+ * - Renders can run in the background (submit) and be cancelled when a newer view supersedes them
+ * - Tiles are filled by brute force or Mariani-Silver subdivision, see RenderMode
+ * - Frames snapped to the TileCache lattice reuse tiles computed for earlier frames
+ * - A zoom-in seeded with the previous frame (ZoomSeed) shows it upscaled at once, renders the tiles
+ *   with detail first and, outside brute force, fills interior tiles whose border stays interior
+ * - Interactive previews render progressively: 1/16 of the samples, then 1/4, then all,
+ *   each pass reusing the samples of the coarser ones and stopping at a frame-time budget
+ */
+final class RenderEngine {
+
+    // Tile edge in pixels; small enough to balance load, large enough to amortise task overhead
+    static final int TILE_SIZE = 64;
+
+    static final ForkJoinPool POOL = ForkJoinPool.commonPool();
+
+    // Mode used by new renders (selected from the control bar)
+    static volatile RenderMode renderMode = RenderMode.BRUTE_FORCE;
+
+    // Count buffer entry for a pixel whose tile has not been rendered yet
+    static final int UNRENDERED = Integer.MIN_VALUE;
+
+    // Progressive passes, coarsest first: every 4th pixel per axis (1/16 of the samples), every 2nd (1/4), all
+    static final int[] PREVIEW_STRIDES = {4, 2, 1};
+
+    private RenderEngine() {}
+
+    /**
+     * Renders kernel into every pixel of target (which must be TYPE_INT_RGB), blocking until all tiles are done.
+     */
+    static Job render(BufferedImage target, PixelKernel kernel, int maxIterations) {
+        return render(target, kernel, maxIterations, renderMode);
+    }
+
+    static Job render(BufferedImage target, PixelKernel kernel, int maxIterations, RenderMode mode) {
+        Job job = new Job(target, kernel, maxIterations, mode, null, null);
+        POOL.invoke(new TileTask(job, 0, 0, target.getWidth(), target.getHeight(), 0));
+        job.finish();
+        return job;
+    }
+
+    static Job submit(BufferedImage target, PixelKernel kernel, int maxIterations, TileListener listener) {
+        return submit(target, kernel, maxIterations, listener, null);
+    }
+
+    /**
+     * Starts rendering kernel into target in the background and returns immediately.
+     * listener (may be null) is told about every finished tile, in image coordinates,
+     * from a worker thread. onDone (may be null) runs on a worker once every tile is
+     * finished, unless the job was cancelled.
+     */
+    static Job submit(BufferedImage target, PixelKernel kernel, int maxIterations, TileListener listener, Consumer<Job> onDone) {
+        return submit(target, kernel, maxIterations, null, listener, onDone);
+    }
+
+    /**
+     * As above; when grid is not null the frame is rendered tile by tile on the TileCache lattice,
+     * reusing cached tiles. kernel must then map image pixels the same way (grid.kernel).
+     */
+    static Job submit(BufferedImage target, PixelKernel kernel, int maxIterations, TileCache.Grid grid,
+                      TileListener listener, Consumer<Job> onDone) {
+        return submit(target, kernel, maxIterations, grid, null, listener, onDone);
+    }
+
+    /**
+     * As above, seeded with the frame this one zooms into (seed may be null, see ZoomSeed).
+     */
+    static Job submit(BufferedImage target, PixelKernel kernel, int maxIterations, TileCache.Grid grid,
+                      ZoomSeed seed, TileListener listener, Consumer<Job> onDone) {
+        Job job = new Job(target, kernel, maxIterations, renderMode, grid, listener);
+        POOL.execute(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                if (seed != null) preview(job, seed);
+                if (grid != null) LatticeTileTask.invokeAllTiles(job, seed);
+                else if (seed != null) TileTask.invokeAllTiles(job, seed);
+                else new TileTask(job, 0, 0, target.getWidth(), target.getHeight(), 0).invoke();
+                job.finish();
+                if (onDone != null && !job.isCancelled()) onDone.accept(job);
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Progressive render for interaction: runs the PREVIEW_STRIDES passes down to finestStride,
+     * each sample filling its stride × stride block until a finer pass replaces it.
+     * Pixels a coarser pass already computed are reused, not recomputed.
+     * Always brute force on image coordinates (no tile cache, no Mariani-Silver).
+     */
+    static Job submitProgressive(BufferedImage target, PixelKernel kernel, int maxIterations, int finestStride,
+                                 TileListener listener, Consumer<Job> onDone) {
+        Job job = new Job(target, kernel, maxIterations, RenderMode.BRUTE_FORCE, null, listener);
+        POOL.execute(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                for (int stride : PREVIEW_STRIDES) {
+                    if (stride < finestStride || job.isCancelled()) break;
+                    new TileTask(job, 0, 0, target.getWidth(), target.getHeight(), stride).invoke();
+                }
+                job.finish();
+                if (onDone != null && !job.isCancelled()) onDone.accept(job);
+            }
+        });
+        return job;
+    }
+
+    // Previous frame's counts, upscaled, as the picture until tiles land; the job's counts stay UNRENDERED
+    private static void preview(Job job, ZoomSeed seed) {
+        int width = job.target.getWidth(), height = job.target.getHeight();
+        Palette palette = job.palette;
+        for (int py = 0; py < height; py++) {
+            for (int px = 0; px < width; px++) {
+                int n = seed.countAt(px, py);
+                if (n != UNRENDERED) job.pixels[py * width + px] = palette.rgb(n);
+            }
+        }
+        if (job.listener != null) job.listener.tileDone(0, 0, width, height);
+    }
+
+    /**
+     * Runs the seeded tiles class by class (ZoomSeed.DETAIL first), each class in parallel.
+     */
+    private static void invokeByClass(List<? extends RecursiveAction>[] classes) {
+        for (List<? extends RecursiveAction> tasks : classes) RecursiveAction.invokeAll(tasks);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> List<T>[] classLists() {
+        return new List[]{new ArrayList<T>(), new ArrayList<T>(), new ArrayList<T>()};
+    }
+
+    /**
+     * Seeded zoom: fills an interior tile with maxIterations when every pixel of its border is interior,
+     * without iterating the inside. False (nothing stored) otherwise, and always in BRUTE_FORCE mode:
+     * this is the Mariani-Silver guess, which can miss an exterior channel thinner than a pixel.
+     * In VERIFY mode the filled pixels are checked like Mariani-Silver's.
+     */
+    private static boolean fillInterior(Job job, int x, int y, int w, int h) {
+        if (job.mode == RenderMode.BRUTE_FORCE) return false;
+        int max = job.maxIterations;
+        int[] column = new int[h];
+        for (int i : new int[]{x, x + w - 1}) {
+            job.kernel.iterations(i, y, h, column);
+            for (int n : column) if (n < max) return false;
+        }
+        for (int i = x + 1; i < x + w - 1; i++) {
+            if (job.isCancelled()) return true; // nothing more to do either way
+            if (job.kernel.iterations(i, y) < max || job.kernel.iterations(i, y + h - 1) < max) return false;
+        }
+        int[] counts = new int[w * h];
+        Arrays.fill(counts, max);
+        if (job.mode == RenderMode.VERIFY) {
+            int i0 = Math.max(x, 0), i1 = Math.min(x + w, job.target.getWidth());
+            int j0 = Math.max(y, 0), j1 = Math.min(y + h, job.target.getHeight());
+            int mismatches = 0;
+            for (int j = j0; j < j1; j++)
+                for (int i = i0; i < i1; i++)
+                    if (job.kernel.iterations(i, j) != max) mismatches++;
+            job.mismatchedPixels.add(mismatches);
+        }
+        job.filledTiles.increment();
+        store(job, counts, x, y, w, h);
+        return true;
+    }
+
+    /**
+     * Finest preview stride whose passes fit in budgetNanos, given the measured cost of one full-resolution
+     * pixel; never coarser than the first pass.
+     */
+    static int previewStride(int width, int height, double nanosPerPixel, double budgetNanos) {
+        for (int i = PREVIEW_STRIDES.length - 1; i > 0; i--) {
+            int stride = PREVIEW_STRIDES[i];
+            if ((double) width * height / (stride * stride) * nanosPerPixel <= budgetNanos) return stride;
+        }
+        return PREVIEW_STRIDES[0];
+    }
+
+    // Callback for progressive display of finished tiles
+    @FunctionalInterface
+    interface TileListener {
+        void tileDone(int x, int y, int width, int height);
+    }
+
+    /**
+     * One render: its target, kernel and mode, plus cancellation.
+     * Cancelling stops workers at the next tile or column boundary; pixels already written stay.
+     */
+    static final class Job {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final LongAdder mismatchedPixels = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder cacheMisses = new LongAdder();
+        private final LongAdder storeHits = new LongAdder();
+        private final LongAdder filledTiles = new LongAdder();
+        private final long startNanos = System.nanoTime();
+        private volatile long elapsedNanos = -1;
+
+        final BufferedImage target;
+        final PixelKernel kernel;
+        final int maxIterations;
+        final RenderMode mode;
+        final TileCache.Grid grid;   // null when not rendering through the tile cache
+        private final TileCache cache = TileCache.SHARED;
+        private final TileListener listener;
+        private volatile Palette palette;
+        private final int[] pixels; // backing array of target's raster
+        private final int[] counts; // iteration count per pixel, same layout as pixels
+        private volatile BoundaryRefinement.Result refinement; // supersampled pixels, null unless refined
+
+        private Job(BufferedImage target, PixelKernel kernel, int maxIterations, RenderMode mode,
+                    TileCache.Grid grid, TileListener listener) {
+            this.target = target;
+            this.grid = grid;
+            this.kernel = kernel;
+            this.maxIterations = maxIterations;
+            this.mode = mode;
+            this.listener = listener;
+            this.palette = Colouring.palette(maxIterations);
+            this.pixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+            this.counts = new int[pixels.length];
+            Arrays.fill(counts, UNRENDERED);
+        }
+
+        void cancel() {
+            cancelled.set(true);
+        }
+
+        boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        private void finish() {
+            elapsedNanos = System.nanoTime() - startNanos;
+        }
+
+        // Wall time from submission until every tile was done, -1 while running
+        long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Raw iteration counts of the frame in raster order (row 0 at the top);
+         * pixels not rendered yet hold UNRENDERED.
+         */
+        int[] counts() {
+            return counts;
+        }
+
+        /**
+         * Re-runs colouring over the counts with the current Colouring settings.
+         * Tiles finished later in a running job also use the new palette.
+         */
+        void recolour() {
+            palette = Colouring.palette(maxIterations, counts);
+            Colouring.apply(counts, pixels, palette);
+            BoundaryRefinement.Result r = refinement;
+            if (r != null) r.apply(pixels, palette);
+        }
+
+        // Installs the supersampled pixels of a finished frame; recolouring keeps blending them from their samples
+        void refine(BoundaryRefinement.Result result) {
+            refinement = result;
+            result.apply(pixels, palette);
+        }
+
+        // In VERIFY mode: pixels where Mariani-Silver disagreed with the exhaustive render
+        long mismatchedPixels() {
+            return mismatchedPixels.sum();
+        }
+
+        // Lattice tiles found in / missing from the tile cache
+        long cacheHits() {
+            return cacheHits.sum();
+        }
+
+        long cacheMisses() {
+            return cacheMisses.sum();
+        }
+
+        // Part of cacheHits read back from the on-disk TileStore
+        long storeHits() {
+            return storeHits.sum();
+        }
+
+        // Seeded zoom: interior tiles filled without iterating their inside
+        long filledTiles() {
+            return filledTiles.sum();
+        }
+    }
+
+    /**
+     * Recursive split of the rectangle [x, x+w) × [y, y+h) along its longer side
+     * until it fits in one tile, then evaluates the tile serially.
+     */
+    private static final class TileTask extends RecursiveAction {
+        private final Job job;
+        private final int x, y, w, h;
+        private final int stride; // progressive pass stride, 0 for a normal render
+        private final boolean interior; // seeded zoom: the previous frame had this tile inside the set
+
+        TileTask(Job job, int x, int y, int w, int h, int stride) {
+            this(job, x, y, w, h, stride, false);
+        }
+
+        TileTask(Job job, int x, int y, int w, int h, int stride, boolean interior) {
+            this.job = job;
+            this.x = x;
+            this.y = y;
+            this.w = w;
+            this.h = h;
+            this.stride = stride;
+            this.interior = interior;
+        }
+
+        // Every TILE_SIZE tile of the image, in the seed's class order
+        static void invokeAllTiles(Job job, ZoomSeed seed) {
+            List<TileTask>[] classes = classLists();
+            for (int y = 0; y < job.target.getHeight(); y += TILE_SIZE) {
+                for (int x = 0; x < job.target.getWidth(); x += TILE_SIZE) {
+                    int w = Math.min(TILE_SIZE, job.target.getWidth() - x), h = Math.min(TILE_SIZE, job.target.getHeight() - y);
+                    int c = seed.classify(x, y, w, h);
+                    classes[c].add(new TileTask(job, x, y, w, h, 0, c == ZoomSeed.INTERIOR));
+                }
+            }
+            invokeByClass(classes);
+        }
+
+        @Override
+        protected void compute() {
+            if (job.isCancelled()) return;
+            if (w <= TILE_SIZE && h <= TILE_SIZE) {
+                if (stride != 0) {
+                    renderSamples();
+                    return;
+                }
+                if (interior && fillInterior(job, x, y, w, h)) return;
+                int[] counts = computeCounts(job, x, y, w, h);
+                if (counts != null) store(job, counts, x, y, w, h);
+                return;
+            }
+            if (w >= h) {
+                int half = w / 2;
+                invokeAll(new TileTask(job, x, y, half, h, stride),
+                        new TileTask(job, x + half, y, w - half, h, stride));
+            } else {
+                int half = h / 2;
+                invokeAll(new TileTask(job, x, y, w, half, stride),
+                        new TileTask(job, x, y + half, w, h - half, stride));
+            }
+        }
+
+        // One progressive pass over this tile: every stride-th pixel, drawn as a stride × stride block
+        private void renderSamples() {
+            int width = job.target.getWidth();
+            int height = job.target.getHeight();
+            boolean refining = stride != PREVIEW_STRIDES[0]; // finer passes reuse the previous pass's samples
+            Palette palette = job.palette;
+
+            for (int i = x + Math.floorMod(-x, stride); i < x + w; i += stride) {
+                if (job.isCancelled()) return;
+                for (int j = y + Math.floorMod(-y, stride); j < y + h; j += stride) {
+                    int sample = (height - 1 - j) * width + i;
+                    boolean reused = refining && i % (2 * stride) == 0 && j % (2 * stride) == 0;
+                    int n = reused ? job.counts[sample] : job.kernel.iterations(i, j);
+                    int rgb = palette.rgb(n);
+
+                    // Block grows upwards in the plane, i.e. upwards on screen from the sample row
+                    for (int jj = j; jj < Math.min(j + stride, height); jj++) {
+                        int row = (height - 1 - jj) * width;
+                        for (int ii = i; ii < Math.min(i + stride, width); ii++) {
+                            job.counts[row + ii] = n;
+                            job.pixels[row + ii] = rgb;
+                        }
+                    }
+                }
+            }
+            // Blocks of the last samples may reach stride - 1 pixels past the tile
+            int right = Math.min(x + w + stride - 1, width), top = Math.min(y + h + stride - 1, height);
+            if (job.listener != null) job.listener.tileDone(x, height - top, right - x, top - y);
+        }
+    }
+
+    /**
+     * One tile of the TileCache lattice: taken from the cache or else the on-disk TileStore when present,
+     * otherwise computed in full (also the part outside the image) and stored in both.
+     */
+    private static final class LatticeTileTask extends RecursiveAction {
+        private final Job job;
+        private final long tx, ty;
+        private final boolean interior; // seeded zoom: the previous frame had this tile inside the set
+
+        LatticeTileTask(Job job, long tx, long ty, boolean interior) {
+            this.job = job;
+            this.tx = tx;
+            this.ty = ty;
+            this.interior = interior;
+        }
+
+        // All lattice tiles overlapping the image, in the seed's class order when seeded
+        static void invokeAllTiles(Job job, ZoomSeed seed) {
+            TileCache.Grid grid = job.grid;
+            long tx0 = Math.floorDiv(grid.originI, TILE_SIZE);
+            long tx1 = Math.floorDiv(grid.originI + job.target.getWidth() - 1, TILE_SIZE);
+            long ty0 = Math.floorDiv(grid.originJ, TILE_SIZE);
+            long ty1 = Math.floorDiv(grid.originJ + job.target.getHeight() - 1, TILE_SIZE);
+            List<LatticeTileTask>[] classes = classLists();
+            for (long tx = tx0; tx <= tx1; tx++) {
+                for (long ty = ty0; ty <= ty1; ty++) {
+                    int c = seed == null ? ZoomSeed.DETAIL
+                            : seed.classify((int) (tx * TILE_SIZE - grid.originI), (int) (ty * TILE_SIZE - grid.originJ), TILE_SIZE, TILE_SIZE);
+                    classes[c].add(new LatticeTileTask(job, tx, ty, c == ZoomSeed.INTERIOR));
+                }
+            }
+            invokeByClass(classes);
+        }
+
+        @Override
+        protected void compute() {
+            if (job.isCancelled()) return;
+
+            // Tile origin in image coordinates
+            int x = (int) (tx * TILE_SIZE - job.grid.originI);
+            int y = (int) (ty * TILE_SIZE - job.grid.originJ);
+
+            TileCache.Key key = job.grid.key(tx, ty, job.mode == RenderMode.BRUTE_FORCE);
+            // VERIFY shares Mariani-Silver's tiles but must recompute them, or cached tiles would go unchecked
+            boolean verify = job.mode == RenderMode.VERIFY;
+            int[] counts = verify ? null : job.cache.get(key);
+            boolean store = TileStore.enabled;
+            if (counts == null && store && !verify) {
+                counts = TileStore.SHARED.get(key);
+                if (counts != null) {
+                    job.storeHits.increment();
+                    job.cache.put(key, counts);
+                }
+            }
+            if (counts != null) {
+                job.cacheHits.increment();
+            } else {
+                job.cacheMisses.increment();
+                // Filled tiles are not cached: they rest on the previous frame, not on this tile alone
+                if (interior && fillInterior(job, x, y, TILE_SIZE, TILE_SIZE)) return;
+                counts = computeCounts(job, x, y, TILE_SIZE, TILE_SIZE);
+                if (counts == null) return; // cancelled: never cache partial tiles
+                job.cache.put(key, counts);
+                if (store) TileStore.SHARED.put(key, counts);
+            }
+            store(job, counts, x, y, TILE_SIZE, TILE_SIZE);
+        }
+    }
+
+    /**
+     * Iteration counts of [x, x+w) × [y, y+h) in image coordinates, indexed (j - y) * w + (i - x),
+     * filled according to job.mode; null if the job was cancelled meanwhile.
+     */
+    private static int[] computeCounts(Job job, int x, int y, int w, int h) {
+        if (job.mode == RenderMode.BRUTE_FORCE) {
+            int[] counts = new int[w * h];
+            int[] column = new int[h];
+            for (int i = x; i < x + w; i++) {
+                if (job.isCancelled()) return null;
+                // One column run per call so SIMD kernels can evaluate several pixels at once
+                job.kernel.iterations(i, y, h, column);
+                for (int k = 0; k < h; k++) counts[k * w + (i - x)] = column[k];
+            }
+            return counts;
+        }
+
+        int[] counts = MarianiSilver.render(job.kernel, x, y, w, h);
+        if (job.isCancelled()) return null;
+        if (job.mode == RenderMode.VERIFY) {
+            // Only pixels in the image: lattice tiles may reach past its edges
+            int i0 = Math.max(x, 0), i1 = Math.min(x + w, job.target.getWidth());
+            int j0 = Math.max(y, 0), j1 = Math.min(y + h, job.target.getHeight());
+            int mismatches = 0;
+            for (int j = j0; j < j1; j++)
+                for (int i = i0; i < i1; i++)
+                    if (counts[(j - y) * w + (i - x)] != job.kernel.iterations(i, j)) mismatches++;
+            job.mismatchedPixels.add(mismatches);
+        }
+        return counts;
+    }
+
+    // Colours the part of a count tile that lies inside the image and reports it as done
+    private static void store(Job job, int[] counts, int x, int y, int w, int h) {
+        int width = job.target.getWidth();
+        int height = job.target.getHeight();
+        int i0 = Math.max(x, 0), i1 = Math.min(x + w, width);
+        int j0 = Math.max(y, 0), j1 = Math.min(y + h, height);
+        if (i0 >= i1 || j0 >= j1) return;
+
+        Palette palette = job.palette;
+        for (int j = j0; j < j1; j++) {
+            // Flip vertically because screen coordinates differ from complex plane
+            int row = (height - 1 - j) * width;
+            int src = (j - y) * w - x;
+            for (int i = i0; i < i1; i++) {
+                int n = counts[src + i];
+                job.counts[row + i] = n;
+                job.pixels[row + i] = palette.rgb(n);
+            }
+        }
+        // Recoloured meanwhile: this tile may have missed the recolouring pass
+        if (job.palette != palette) {
+            Palette latest = job.palette;
+            for (int j = j0; j < j1; j++) {
+                int row = (height - 1 - j) * width;
+                for (int i = i0; i < i1; i++) job.pixels[row + i] = latest.rgb(job.counts[row + i]);
+            }
+        }
+        if (job.listener != null) job.listener.tileDone(i0, height - j1, i1 - i0, j1 - j0);
+    }
+}
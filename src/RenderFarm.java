@@ -0,0 +1,467 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Render farm coordinator: splits frames into tiles that worker JVMs (FarmWorker) pull over local sockets.
+ *
+ *   java -Djava.awt.headless=true Main --farm <port> <local workers> views.txt outputDir
+ *   java -Djava.awt.headless=true Main --farm <port> <local workers> --zoom c_a c_b finalZoom frames width height maxIterations outputDir
+ *   java -Djava.awt.headless=true Main --worker host:port          (extra workers, any time)
+ *
+ * views.txt uses the --batch format. --zoom renders every frame of a ZoomVideo path in full (no keyframe
+ * resampling) as frame%05d.png; views travel as doubles, so the path must stay above Perturbation.DEEP_ZOOM_SPACING
+ * per pixel (zoom ~5e10 at 1000 pixels), deeper videos need Main --zoom. Port 0 picks a free port, which is printed.
+ * - Tiles wait in one queue; every connection keeps up to its worker's window of tiles in flight
+ * - A worker that disconnects or stays silent for TILE_TIMEOUT_MS is dropped and its tiles go back to the
+ *   front of the queue; a tile that has been handed out MAX_ATTEMPTS times fails its frame
+ * - Backpressure: at most FRAMES_IN_FLIGHT frames are queued or being written, so a long view list never
+ *   piles up count buffers, and local workers that exit are restarted (at most MAX_RESTARTS times);
+ *   once no worker is connected and none can be restarted, the run fails instead of waiting forever
+ * - Workers send iteration counts, not pixels: zigzag varint deltas, deflated; the coordinator stitches
+ *   them into the frame's count buffer and colours the frame once, so palettes and equalisation still apply
+ */
+final class RenderFarm {
+
+    static final int PROTOCOL_MAGIC = 0x4D424632; // "MBF2", views carry the lattice flag
+    static final int TILE_SIZE = 128;
+    static final int FRAMES_IN_FLIGHT = 4;
+    static final int MAX_ATTEMPTS = 3;
+    static final int MAX_RESTARTS = 8;
+    static final int TILE_TIMEOUT_MS = 120_000;
+
+    private final ServerSocket server;
+    private final LinkedBlockingDeque<Tile> queue = new LinkedBlockingDeque<>();
+    private final Semaphore framesInFlight = new Semaphore(FRAMES_IN_FLIGHT);
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private final List<Process> localWorkers = new ArrayList<>();
+    private final AtomicInteger restarts = new AtomicInteger();
+    private final AtomicInteger workersLost = new AtomicInteger();
+    private final AtomicInteger connected = new AtomicInteger();
+    private volatile boolean restartsExhausted;
+    private boolean aborted; // guarded by this
+    private final AtomicLong tilesDone = new AtomicLong();
+    private final AtomicLong tilesRetried = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    RenderFarm(int port) throws IOException {
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "farm-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    static void run(String[] args) throws IOException, InterruptedException {
+        boolean zoom = args.length == 11 && args[2].equals("--zoom");
+        if (args.length != 4 && !zoom) {
+            System.out.println("Usage: java -Djava.awt.headless=true Main --farm <port> <local workers> <views file> <output dir>");
+            System.out.println("       java -Djava.awt.headless=true Main --farm <port> <local workers> --zoom <c_a> <c_b> "
+                    + "<final zoom> <frames> <width> <height> <max iterations> <output dir>");
+            System.exit(2);
+        }
+        File dir = new File(args[args.length - 1]);
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create output directory " + dir);
+        List<FractalView> views;
+        List<File> files = new ArrayList<>();
+        if (zoom) {
+            views = zoomViews(Double.parseDouble(args[3]), Double.parseDouble(args[4]), Double.parseDouble(args[5]),
+                    Integer.parseInt(args[6]), Integer.parseInt(args[7]), Integer.parseInt(args[8]), Integer.parseInt(args[9]));
+            for (int n = 0; n < views.size(); n++) files.add(new File(dir, String.format("frame%05d.png", n)));
+        } else {
+            views = BatchRender.parse(Files.readAllLines(new File(args[2]).toPath(), StandardCharsets.UTF_8));
+            for (int n = 0; n < views.size(); n++) files.add(new File(dir, "view" + (n + 1) + ".png"));
+        }
+
+        RenderFarm farm = new RenderFarm(Integer.parseInt(args[0]));
+        System.out.println("Coordinator listening on localhost:" + farm.port());
+        try {
+            farm.startLocalWorkers(Integer.parseInt(args[1]));
+            farm.render(views, files);
+        } finally {
+            farm.close();
+        }
+    }
+
+    /**
+     * Frames of a ZoomVideo path into (c_a, c_b), each rendered in full at width × height.
+     * IllegalArgumentException when the last frame is too deep for views in doubles.
+     */
+    static List<FractalView> zoomViews(double c_a, double c_b, double finalZoom, int frames,
+                                       int width, int height, int maxIterations) {
+        if (finalZoom < 1) throw new IllegalArgumentException("final zoom must be at least 1");
+        if (frames < 2) throw new IllegalArgumentException("need at least 2 frames");
+        if (Perturbation.isNeeded(ZoomVideo.BASE_SPAN / finalZoom / width)) {
+            throw new IllegalArgumentException("final zoom " + finalZoom + " is too deep for the farm's double-precision views, "
+                    + "use Main --zoom");
+        }
+        List<FractalView> views = new ArrayList<>();
+        for (int n = 0; n < frames; n++) {
+            // Geometric steps as in ZoomVideo, so the apparent speed is constant
+            double spanX = ZoomVideo.BASE_SPAN / Math.pow(finalZoom, n / (double) (frames - 1));
+            double spanY = spanX * height / width;
+            views.add(FractalView.mandelbrot(c_a - spanX / 2, c_a + spanX / 2, c_b - spanY / 2, c_b + spanY / 2,
+                    width, height, maxIterations));
+        }
+        return views;
+    }
+
+    // Renders views.get(n) to files.get(n), blocking until all are written
+    void render(List<FractalView> views, List<File> files) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        for (int n = 0; n < views.size(); n++) {
+            framesInFlight.acquire(); // backpressure: wait for a frame to be written
+            if (failure != null) {
+                framesInFlight.release();
+                break;
+            }
+            submit(new Frame(views.get(n), files.get(n)));
+        }
+        framesInFlight.acquire(FRAMES_IN_FLIGHT); // all frames written
+        framesInFlight.release(FRAMES_IN_FLIGHT);
+        if (failure != null) throw failure;
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d frames in %.1f s (%.2f frames/s): %d tiles, %d retried, %d workers lost, %.1f MB of counts received%n",
+                views.size(), seconds, views.size() / seconds, tilesDone.get(), tilesRetried.get(),
+                workersLost.get(), bytesReceived.get() / 1e6);
+    }
+
+    private void submit(Frame frame) {
+        FractalView v = frame.view;
+        for (int y = 0; y < v.height; y += TILE_SIZE) {
+            for (int x = 0; x < v.width; x += TILE_SIZE) {
+                queue.add(new Tile(frame, x, y, Math.min(TILE_SIZE, v.width - x), Math.min(TILE_SIZE, v.height - y)));
+            }
+        }
+    }
+
+    // Starts worker JVMs on this machine with the coordinator's class path
+    void startLocalWorkers(int count) throws IOException {
+        for (int k = 0; k < count; k++) startLocalWorker();
+    }
+
+    private void startLocalWorker() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.add("-Djava.awt.headless=true");
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            command.add("--add-modules");
+            command.add("jdk.incubator.vector");
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("Main");
+        command.add("--worker");
+        command.add("localhost:" + port());
+
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        synchronized (localWorkers) {
+            localWorkers.add(process);
+        }
+        process.onExit().thenRun(() -> {
+            if (closed) return;
+            if (restarts.incrementAndGet() > MAX_RESTARTS) {
+                System.out.println("Local worker exited, restart limit reached");
+                restartsExhausted = true;
+                checkWorkers();
+                return;
+            }
+            System.out.println("Local worker exited (" + process.exitValue() + "), restarting");
+            try {
+                startLocalWorker();
+            } catch (IOException e) {
+                System.out.println("Cannot restart worker: " + e.getMessage());
+                restartsExhausted = true;
+                checkWorkers();
+            }
+        });
+    }
+
+    // Fails the run when no worker is left to drain the queue and no local one can be started again
+    private void checkWorkers() {
+        if (closed || !restartsExhausted || connected.get() > 0) return;
+        synchronized (localWorkers) {
+            for (Process p : localWorkers) if (p.isAlive()) return;
+        }
+        abort(new IOException("no workers left: every local worker exited and the restart limit is reached"));
+    }
+
+    // Fails the whole run and releases render() from every wait
+    private synchronized void abort(IOException e) {
+        if (aborted) return;
+        aborted = true;
+        if (failure == null) failure = e;
+        System.out.println("Render farm failed: " + e.getMessage());
+        framesInFlight.release(FRAMES_IN_FLIGHT);
+    }
+
+    void close() throws IOException {
+        closed = true;
+        server.close();
+        writer.shutdown();
+        synchronized (localWorkers) {
+            for (Process p : localWorkers) p.destroy();
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                Thread t = new Thread(() -> serve(socket), "farm-worker-" + socket.getPort());
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                if (!closed) System.out.println("Accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One worker connection: keeps its window of tiles in flight and stitches the results.
+     * Any I/O problem drops the worker and requeues what it held.
+     */
+    private void serve(Socket socket) {
+        Map<Integer, Tile> outstanding = new HashMap<>(); // by request id, unique on this connection
+        int nextId = 0;
+        boolean counted = false; // handshake done, included in connected
+        try (Socket s = socket) {
+            s.setSoTimeout(TILE_TIMEOUT_MS);
+            s.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            if (in.readInt() != PROTOCOL_MAGIC) throw new IOException("not a farm worker");
+            int window = Math.max(1, in.readInt());
+            System.out.println("Worker connected from port " + s.getPort() + ", window " + window);
+            connected.incrementAndGet();
+            counted = true;
+
+            while (!closed) {
+                // Fill the window; wait briefly for work only when the worker is idle
+                while (outstanding.size() < window) {
+                    Tile tile = outstanding.isEmpty() ? queue.poll(200, TimeUnit.MILLISECONDS) : queue.poll();
+                    if (tile == null) break;
+                    if (tile.frame.failed) continue;
+                    if (++tile.attempts > MAX_ATTEMPTS) {
+                        fail(tile.frame, new IOException("tile " + tile + " was lost by " + MAX_ATTEMPTS + " workers"));
+                        continue;
+                    }
+                    if (tile.attempts > 1) tilesRetried.incrementAndGet();
+                    outstanding.put(nextId, tile);
+                    writeTile(out, nextId++, tile);
+                }
+                out.flush();
+                if (outstanding.isEmpty()) continue;
+
+                // Results come back in any order
+                int id = in.readInt();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                bytesReceived.addAndGet(data.length + 8);
+                Tile tile = outstanding.remove(id);
+                if (tile == null) throw new IOException("unknown tile id " + id);
+                tile.frame.stitch(tile, decodeCounts(data, tile.w * tile.h));
+                tilesDone.incrementAndGet();
+            }
+        } catch (IOException | InterruptedException | DataFormatException e) {
+            if (!closed) {
+                workersLost.incrementAndGet();
+                String reason = e instanceof SocketTimeoutException ? "timed out" : e.toString();
+                System.out.println("Worker on port " + socket.getPort() + " lost (" + reason + "), requeueing "
+                        + outstanding.size() + " tiles");
+            }
+        } finally {
+            // Front of the queue: these tiles are the oldest work
+            for (Tile t : outstanding.values()) queue.addFirst(t);
+            if (counted) connected.decrementAndGet();
+            checkWorkers();
+        }
+    }
+
+    private synchronized void fail(Frame frame, IOException e) {
+        if (frame.failed) return;
+        frame.failed = true;
+        if (failure == null) failure = e;
+        System.out.println(frame.file + " failed: " + e.getMessage());
+        framesInFlight.release();
+    }
+
+    private static void writeTile(DataOutputStream out, int id, Tile tile) throws IOException {
+        FractalView v = tile.frame.view;
+        out.writeInt(id);
+        out.writeBoolean(v.julia);
+        out.writeBoolean(v.lattice);
+        out.writeDouble(v.c_a);
+        out.writeDouble(v.c_b);
+        out.writeDouble(v.xMin);
+        out.writeDouble(v.xMax);
+        out.writeDouble(v.yMin);
+        out.writeDouble(v.yMax);
+        out.writeInt(v.width);
+        out.writeInt(v.height);
+        out.writeInt(v.maxIterations);
+        out.writeInt(tile.x);
+        out.writeInt(tile.y);
+        out.writeInt(tile.w);
+        out.writeInt(tile.h);
+    }
+
+    /**
+     * Compact tile encoding shared with FarmWorker: each count as the zigzag varint of its difference
+     * from the previous one, then deflated. Runs of equal counts (interior, smooth bands) shrink to almost nothing.
+     */
+    static byte[] encodeCounts(int[] counts) {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(counts.length * 2);
+        int previous = 0;
+        for (int n : counts) {
+            int delta = n - previous;
+            previous = n;
+            int zigzag = (delta << 1) ^ (delta >> 31);
+            while ((zigzag & ~0x7F) != 0) {
+                raw.write((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            raw.write(zigzag);
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw.toByteArray());
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) out.write(buf, 0, deflater.deflate(buf));
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static int[] decodeCounts(byte[] data, int length) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(length * 2);
+        try {
+            inflater.setInput(data);
+            byte[] buf = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buf);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) throw new DataFormatException("truncated tile");
+                raw.write(buf, 0, n);
+            }
+        } finally {
+            inflater.end();
+        }
+        byte[] bytes = raw.toByteArray();
+        int[] counts = new int[length];
+        int p = 0, previous = 0;
+        for (int k = 0; k < length; k++) {
+            int zigzag = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (p >= bytes.length) throw new DataFormatException("short tile");
+                int b = bytes[p++];
+                zigzag |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) break;
+            }
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            counts[k] = previous;
+        }
+        return counts;
+    }
+
+    // Tile in kernel coordinates (j up from the bottom row); counts come back column by column
+    private static final class Tile {
+        final Frame frame;
+        final int x, y, w, h;
+        int attempts; // only touched by the connection holding the tile
+
+        Tile(Frame frame, int x, int y, int w, int h) {
+            this.frame = frame;
+            this.x = x;
+            this.y = y;
+            this.w = w;
+            this.h = h;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + x + ", " + y + ") of " + frame.file.getName();
+        }
+    }
+
+    // A frame being assembled: the count buffer fills tile by tile, then it is coloured and written once
+    private final class Frame {
+        final FractalView view;
+        final File file;
+        final int[] counts;
+        final AtomicInteger remaining;
+        final long start = System.nanoTime();
+        volatile boolean failed;
+
+        Frame(FractalView view, File file) {
+            this.view = view;
+            this.file = file;
+            this.counts = new int[view.width * view.height];
+            int tilesX = (view.width + TILE_SIZE - 1) / TILE_SIZE, tilesY = (view.height + TILE_SIZE - 1) / TILE_SIZE;
+            this.remaining = new AtomicInteger(tilesX * tilesY);
+        }
+
+        void stitch(Tile tile, int[] tileCounts) {
+            if (failed) return;
+            for (int i = 0; i < tile.w; i++) {
+                for (int k = 0; k < tile.h; k++) {
+                    // Flip vertically because screen coordinates differ from complex plane
+                    int row = view.height - 1 - (tile.y + k);
+                    counts[row * view.width + tile.x + i] = tileCounts[i * tile.h + k];
+                }
+            }
+            if (remaining.decrementAndGet() == 0) writer.execute(this::write);
+        }
+
+        private void write() {
+            try {
+                BufferedImage img = new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_RGB);
+                int[] pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+                Colouring.apply(counts, pixels, Colouring.palette(view.maxIterations, counts));
+                ImageIO.write(img, "png", file);
+                System.out.printf("%s -> %s (%.0f ms)%n", view, file, (System.nanoTime() - start) / 1e6);
+                framesInFlight.release();
+            } catch (IOException e) {
+                fail(this, e);
+            } catch (RuntimeException e) {
+                fail(this, new IOException(e));
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * How RenderEngine fills each tile.
+ */
+enum RenderMode {
+    // Evaluate every pixel
+    BRUTE_FORCE("Brute force"),
+    // Mariani-Silver: fill rectangles whose whole border has one iteration count, subdivide the rest
+    MARIANI_SILVER("Mariani-Silver"),
+    // Mariani-Silver output, also compared pixel by pixel against a brute-force render
+    VERIFY("Verify Mariani-Silver");
+
+    private final String label;
+
+    RenderMode(String label) {
+        this.label = label;
+    }
+
+    // Shown in the render mode combo box
+    @Override
+    public String toString() {
+        return label;
+    }
+}
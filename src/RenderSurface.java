@@ -0,0 +1,98 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * Double-buffered render target for a panel.
+ * - Two TYPE_INT_RGB buffers at the panel's size take turns as front (shown) and back (being rendered),
+ *   so a frame allocates nothing unless the size changed or the old job still holds the back buffer
+ * - RenderEngine writes the rasters directly, which keeps Java2D from caching them on the GPU,
+ *   so paint() blits from a VolatileImage copy that is only updated where tiles landed
+ */
+final class RenderSurface {
+
+    private final Component owner;
+
+    private BufferedImage front, back;
+    private RenderEngine.Job frontJob, backJob; // last job given each buffer (null if none)
+
+    // Screen-side copy of front, and the part of front it is missing
+    private VolatileImage volatileImage;
+    private final Rectangle dirty = new Rectangle();
+
+    RenderSurface(Component owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Buffer for a new width × height frame, holding the current frame so it stays visible until new tiles
+     * overwrite it. It becomes the front buffer; hand the job rendering into it to attach().
+     */
+    synchronized BufferedImage nextFrame(int width, int height) {
+        BufferedImage next = back;
+        // A cancelled job may still be finishing a tile: never reuse a buffer it can write into
+        boolean busy = backJob != null && backJob.elapsedNanos() < 0;
+        if (next == null || busy || next.getWidth() != width || next.getHeight() != height) {
+            next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        if (front != null) {
+            Graphics g = next.getGraphics();
+            g.drawImage(front, 0, 0, null);
+            g.dispose();
+        }
+        back = front;
+        backJob = frontJob;
+        front = next;
+        frontJob = null;
+        dirty.setBounds(0, 0, width, height);
+        return next;
+    }
+
+    synchronized void attach(RenderEngine.Job job) {
+        frontJob = job;
+    }
+
+    synchronized BufferedImage front() {
+        return front;
+    }
+
+    // Region of the front buffer that changed (tile done, recolour); repaint it afterwards
+    synchronized void invalidate(int x, int y, int width, int height) {
+        if (dirty.isEmpty()) dirty.setBounds(x, y, width, height);
+        else dirty.add(new Rectangle(x, y, width, height));
+    }
+
+    synchronized void invalidate() {
+        if (front != null) dirty.setBounds(0, 0, front.getWidth(), front.getHeight());
+    }
+
+    synchronized void paint(Graphics g) {
+        if (front == null) return;
+        int w = front.getWidth(), h = front.getHeight();
+        GraphicsConfiguration gc = owner.getGraphicsConfiguration();
+        if (gc == null) {
+            g.drawImage(front, 0, 0, null);
+            return;
+        }
+
+        // Contents can be lost at any time (display change, another full-screen app); redo the full copy then
+        do {
+            int status = volatileImage == null ? VolatileImage.IMAGE_INCOMPATIBLE : volatileImage.validate(gc);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE || volatileImage.getWidth() != w || volatileImage.getHeight() != h) {
+                if (volatileImage != null) volatileImage.flush();
+                volatileImage = gc.createCompatibleVolatileImage(w, h);
+                dirty.setBounds(0, 0, w, h);
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                dirty.setBounds(0, 0, w, h);
+            }
+            if (!dirty.isEmpty()) {
+                Graphics2D vg = volatileImage.createGraphics();
+                vg.setClip(dirty);
+                vg.drawImage(front, 0, 0, null);
+                vg.dispose();
+                dirty.setSize(0, 0);
+            }
+            g.drawImage(volatileImage, 0, 0, null);
+        } while (volatileImage.contentsLost());
+    }
+}
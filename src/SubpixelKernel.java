@@ -0,0 +1,14 @@
+/**
+ * Kernel that can also be sampled between pixel centres, for supersampling and distance estimation.
+ * (x, y) use the PixelKernel axes: sample (i, j) is pixel (i, j), sample (i + 0.5, j) lies halfway to pixel i + 1.
+ */
+@FunctionalInterface
+interface SubpixelKernel {
+
+    /**
+     * Escape-time count at (x, y), same meaning as PixelKernel.iterations.
+     * When distance is not null, distance[0] receives the estimated distance to the set in pixels
+     * (0 for points inside it), or NaN if the kernel cannot estimate it.
+     */
+    int sample(double x, double y, double[] distance);
+}
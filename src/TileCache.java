@@ -0,0 +1,181 @@
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memory-bounded LRU cache of iteration-count tiles, shared by every panel.
+ * - Tiles sit on a global pixel lattice per zoom level: pixel (gi, gj) is the point
+ *   (gi * stepX, gj * stepY), and tile (tx, ty) covers gi in [tx*T, tx*T + T), likewise gj
+ * - A frame snapped to that lattice (see Grid) reuses every tile it shares with earlier frames:
+ *   a pan only computes the newly exposed strips, zooming back out finds the old level's tiles
+ * - Keys: fractal, Julia c, zoom level (the snapped steps), maxIterations and tile coordinates,
+ *   plus whether the tile was computed exactly (brute force) or by Mariani-Silver, and in float or double
+ * - Counts are stored instead of colours, so palette changes do not invalidate tiles
+ */
+final class TileCache {
+
+    static final int TILE_SIZE = RenderEngine.TILE_SIZE;
+
+    // Significant digits of a snapped pixel step; zoom-in then zoom-out lands on the same level
+    static final MathContext STEP_PRECISION = new MathContext(10);
+
+    // Shared cache: a quarter of the heap, at most 256 MB
+    static final TileCache SHARED = new TileCache(Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 4));
+
+    // Used by new renders; perturbation (deep zoom) frames are never cached
+    static volatile boolean enabled = true;
+
+    private final long maxBytes;
+    private long bytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Access-ordered, so iteration starts at the least recently used tile
+    private final LinkedHashMap<Key, int[]> tiles = new LinkedHashMap<>(256, 0.75f, true);
+
+    TileCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized int[] get(Key key) {
+        int[] counts = tiles.get(key);
+        if (counts == null) misses.increment();
+        else hits.increment();
+        return counts;
+    }
+
+    synchronized void put(Key key, int[] counts) {
+        int[] old = tiles.put(key, counts);
+        if (old != null) bytes -= sizeOf(old);
+        bytes += sizeOf(counts);
+
+        // Evict least recently used tiles until back under budget
+        Iterator<Map.Entry<Key, int[]>> it = tiles.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<Key, int[]> eldest = it.next();
+            bytes -= sizeOf(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    synchronized void clear() {
+        tiles.clear();
+        bytes = 0;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    private static long sizeOf(int[] counts) {
+        return 16 + 4L * counts.length;
+    }
+
+    // Rounds a pixel step to STEP_PRECISION so nearby zoom levels share one lattice
+    static double snapStep(double step) {
+        return new BigDecimal(step).round(STEP_PRECISION).doubleValue();
+    }
+
+    /**
+     * A frame of width × height pixels placed on the lattice of its zoom level:
+     * image pixel (i, j) is lattice pixel (originI + i, originJ + j).
+     */
+    static final class Grid {
+        final boolean julia;
+        final double c_a, c_b;
+        final double stepX, stepY;
+        final long originI, originJ;
+        final int maxIterations;
+        final Precision precision; // FLOAT or DOUBLE
+
+        Grid(boolean julia, double c_a, double c_b, double stepX, double stepY, long originI, long originJ, int maxIterations,
+             Precision precision) {
+            this.precision = precision;
+            this.julia = julia;
+            this.c_a = c_a;
+            this.c_b = c_b;
+            this.stepX = stepX;
+            this.stepY = stepY;
+            this.originI = originI;
+            this.originJ = originJ;
+            this.maxIterations = maxIterations;
+        }
+
+        // Snaps view to the nearest lattice position of its (snapped) zoom level
+        static Grid of(FractalView view) {
+            double stepX = snapStep((view.xMax - view.xMin) / view.width);
+            double stepY = snapStep((view.yMax - view.yMin) / view.height);
+            // Lattice kernels are escape-time kernels: deep tiers are never snapped (perturbation frames are not cached)
+            Precision precision = view.precision().isDeep() ? Precision.DOUBLE : view.precision();
+            return new Grid(view.julia, view.c_a, view.c_b, stepX, stepY,
+                    Math.round(view.xMin / stepX), Math.round(view.yMin / stepY), view.maxIterations, precision);
+        }
+
+        // Window of a width × height frame on this grid: what the frame actually shows (Grid.of of it is this grid)
+        FractalView view(int width, int height) {
+            double xMin = originI * stepX, xMax = (originI + width) * stepX;
+            double yMin = originJ * stepY, yMax = (originJ + height) * stepY;
+            FractalView view = julia ? FractalView.julia(c_a, c_b, xMin, xMax, yMin, yMax, width, height, maxIterations)
+                    : FractalView.mandelbrot(xMin, xMax, yMin, yMax, width, height, maxIterations);
+            return view.onLattice();
+        }
+
+        // Kernel for image coordinates of this frame (also valid outside [0, width) × [0, height))
+        EscapeTimeKernel kernel(LongAdder skipped) {
+            return EscapeTimeKernel.lattice(julia, c_a, c_b, stepX, stepY, originI, originJ, maxIterations, skipped, precision);
+        }
+
+        Key key(long tx, long ty, boolean exact) {
+            return new Key(this, tx, ty, exact);
+        }
+    }
+
+    static final class Key {
+        final boolean julia;
+        final double c_a, c_b, stepX, stepY;
+        final int maxIterations;
+        final long tx, ty;
+        final boolean exact;
+        final Precision precision;
+
+        private Key(Grid grid, long tx, long ty, boolean exact) {
+            this.exact = exact;
+            this.precision = grid.precision;
+            this.julia = grid.julia;
+            this.c_a = grid.c_a;
+            this.c_b = grid.c_b;
+            this.stepX = grid.stepX;
+            this.stepY = grid.stepY;
+            this.maxIterations = grid.maxIterations;
+            this.tx = tx;
+            this.ty = ty;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return julia == k.julia && exact == k.exact && precision == k.precision && tx == k.tx && ty == k.ty && maxIterations == k.maxIterations
+                    && Double.compare(c_a, k.c_a) == 0 && Double.compare(c_b, k.c_b) == 0
+                    && Double.compare(stepX, k.stepX) == 0 && Double.compare(stepY, k.stepY) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(julia, exact, precision, c_a, c_b, stepX, stepY, maxIterations, tx, ty);
+        }
+    }
+}
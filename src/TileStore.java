@@ -0,0 +1,323 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Persistent second tier behind the TileCache: count tiles kept on disk between sessions,
+ * so revisiting a famous region costs a file read instead of the iterations.
+ * - Layout: one directory per zoom level (fractal, Julia c, snapped steps, maxIterations, exact, precision),
+ *   one file per tile named by its lattice coordinates
+ * - Tile file: MAGIC, element width, tx, ty, then the counts row by row; counts are stored + 1 as
+ *   unsigned shorts when maxIterations allows, ints otherwise. Reads copy the file into a heap buffer
+ * - The store root holds a version stamp of the file format, TILE_SIZE and EscapeTime.KERNEL_VERSION;
+ *   a store written with other kernel parameters is wiped when opened
+ * - LRU by file modification time (touched on every hit), evicted down to maxBytes
+ * - Writes go through one background thread and a bounded queue, so a slow disk never holds up a render;
+ *   tiles that do not fit in the queue are simply not stored
+ * - Opt-in (it writes up to maxBytes to disk): off unless ticked or -Dmandelbrot.tileStore is given.
+ *   The store is scanned on a background thread; until that is done reads miss and writes wait in the queue
+ */
+final class TileStore {
+
+    static final int MAGIC = 0x4D42544C; // "MBTL"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int TILE_SIZE = TileCache.TILE_SIZE;
+    static final String VERSION_FILE = "store.version";
+    static final int WRITE_QUEUE = 256;
+
+    // Root directory: -Dmandelbrot.tileStore, else ~/.mandelbrot/tiles; size cap: -Dmandelbrot.tileStoreMB (default 1024)
+    static final TileStore SHARED = new TileStore(
+            Paths.get(System.getProperty("mandelbrot.tileStore",
+                    Paths.get(System.getProperty("user.home"), ".mandelbrot", "tiles").toString())),
+            Long.getLong("mandelbrot.tileStoreMB", 1024) << 20);
+
+    // Used by lattice renders alongside the TileCache (toggled from the control bar, see setEnabled)
+    static volatile boolean enabled = System.getProperty("mandelbrot.tileStore") != null;
+
+    private final Path root;
+    private final long maxBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final ThreadPoolExecutor writer;
+
+    // Lazily scanned index of the files on disk, access-ordered like the TileCache (null until opened)
+    private LinkedHashMap<Path, Long> files;
+    private volatile boolean opened; // files is ready, checked without the lock on every read
+    private volatile boolean opening; // background scan started
+    private long bytes;
+    private volatile boolean broken;
+
+    TileStore(Path root, long maxBytes) {
+        this.root = root;
+        this.maxBytes = maxBytes;
+        writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(WRITE_QUEUE), r -> {
+            Thread t = new Thread(r, "tile-store-writer");
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    // Turns the store on or off; turning it on starts scanning it in the background
+    static void setEnabled(boolean on) {
+        enabled = on;
+        if (on) SHARED.openInBackground();
+    }
+
+    /**
+     * Counts of the tile for key, or null when it is not stored, the store is still being scanned
+     * or it cannot be used. Never scans the store on the calling (render) thread.
+     */
+    int[] get(TileCache.Key key) {
+        if (!opened) {
+            openInBackground();
+            return null;
+        }
+        Path file = pathOf(key);
+        int[] counts = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            counts = decode(read(channel), key);
+        } catch (NoSuchFileException e) {
+            // not stored
+        } catch (IOException e) {
+            System.out.println("Tile store read failed: " + e.getMessage());
+        }
+        if (counts == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        touch(file);
+        return counts;
+    }
+
+    // Stores counts for key in the background (the writer opens the store first); dropped if the write queue is full
+    void put(TileCache.Key key, int[] counts) {
+        if (broken) return;
+        writer.execute(() -> write(key, counts));
+    }
+
+    // Deletes every stored tile in the background, e.g. after a change to kernel parameters within a session
+    void clear() {
+        Thread t = new Thread(() -> {
+            if (!open()) return;
+            synchronized (this) {
+                for (Path file : files.keySet()) delete(file);
+                files.clear();
+                bytes = 0;
+            }
+        }, "tile-store-clear");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    // Scans the store on first use; false when it is unusable (e.g. read-only home), which disables it quietly
+    private boolean open() {
+        return opened || scan();
+    }
+
+    private void openInBackground() {
+        if (opened || opening || broken) return;
+        opening = true;
+        Thread t = new Thread(this::scan, "tile-store-open");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private synchronized boolean scan() {
+        if (opened) return true;
+        if (broken) return false;
+        try {
+            Files.createDirectories(root);
+            Path versionFile = root.resolve(VERSION_FILE);
+            String version = "format " + FORMAT_VERSION + " tile " + TILE_SIZE + " kernel " + EscapeTime.KERNEL_VERSION;
+            String stored = Files.exists(versionFile) ? new String(Files.readAllBytes(versionFile), StandardCharsets.UTF_8).trim() : "";
+
+            List<Path> found = new ArrayList<>();
+            try (Stream<Path> walk = Files.walk(root, 2)) {
+                walk.filter(p -> p.toString().endsWith(".tile")).forEach(found::add);
+            }
+            if (!version.equals(stored)) {
+                // Counts from another kernel (or layout) would be wrong, not just stale
+                if (!found.isEmpty()) System.out.println("Tile store " + root + " was written by another kernel version, clearing it");
+                for (Path file : found) delete(file);
+                found.clear();
+                deleteEmptyLevels();
+                Files.write(versionFile, version.getBytes(StandardCharsets.UTF_8));
+            }
+
+            // Oldest first, so the access order starts with the least recently used tile
+            Map<Path, FileTime> times = new LinkedHashMap<>();
+            for (Path file : found) times.put(file, Files.getLastModifiedTime(file));
+            found.sort(Comparator.comparing(times::get));
+            files = new LinkedHashMap<>(Math.max(256, found.size() * 2), 0.75f, true);
+            for (Path file : found) {
+                long size = Files.size(file);
+                files.put(file, size);
+                bytes += size;
+            }
+            evict();
+            opened = true;
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Tile store " + root + " unavailable: " + e.getMessage());
+            broken = true;
+            return false;
+        }
+    }
+
+    private void write(TileCache.Key key, int[] counts) {
+        if (!open()) return;
+        Path file = pathOf(key);
+        try {
+            Files.createDirectories(file.getParent());
+            // Write then rename, so a crash never leaves a half-written tile under the real name
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, encode(key, counts));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                Long old = files.put(file, Files.size(file));
+                if (old != null) bytes -= old;
+                bytes += files.get(file);
+                evict();
+            }
+        } catch (IOException e) {
+            System.out.println("Tile store write failed: " + e.getMessage());
+        }
+    }
+
+    private synchronized void touch(Path file) {
+        if (files.get(file) == null) return; // written by another process: leave it to its index
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Recency only matters for the next session's eviction order
+        }
+    }
+
+    // Removes least recently used tiles until back under budget
+    private void evict() {
+        Iterator<Map.Entry<Path, Long>> it = files.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<Path, Long> eldest = it.next();
+            delete(eldest.getKey());
+            bytes -= eldest.getValue();
+            it.remove();
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.out.println("Cannot delete " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void deleteEmptyLevels() throws IOException {
+        try (DirectoryStream<Path> levels = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path level : levels) {
+                try (Stream<Path> entries = Files.list(level)) {
+                    if (entries.findAny().isEmpty()) Files.delete(level);
+                }
+            }
+        }
+    }
+
+    // <root>/<fractal and level>/<tx>_<ty>.tile; doubles as raw bits so the name is exact
+    private Path pathOf(TileCache.Key key) {
+        StringBuilder level = new StringBuilder(key.julia ? "julia" : "mandelbrot");
+        if (key.julia) level.append('_').append(hex(key.c_a)).append('_').append(hex(key.c_b));
+        level.append('_').append(hex(key.stepX)).append('_').append(hex(key.stepY))
+                .append('_').append(key.maxIterations).append(key.exact ? "_exact" : "_ms");
+        if (key.precision != Precision.DOUBLE) level.append('_').append(key.precision);
+        return root.resolve(level.toString()).resolve(key.tx + "_" + key.ty + ".tile");
+    }
+
+    private static String hex(double d) {
+        return Long.toHexString(Double.doubleToLongBits(d));
+    }
+
+    // Counts fit unsigned shorts after the + 1 that moves OUTSIDE_RADIUS to 0
+    private static int widthOf(int maxIterations) {
+        return maxIterations < 0xFFFF ? 2 : 4;
+    }
+
+    /**
+     * Whole file into a heap buffer. Tiles are a few tens of KB, and a mapping would hold the file open
+     * until it is garbage collected (on Windows it could then not be deleted when clearing or wiping the store).
+     */
+    private static ByteBuffer read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > HEADER_BYTES + TILE_SIZE * TILE_SIZE * 4L) throw new IOException("tile file too large: " + size + " bytes");
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        while (buf.hasRemaining() && channel.read(buf) >= 0) {
+            // read until full or end of file
+        }
+        buf.flip();
+        return buf.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static byte[] encode(TileCache.Key key, int[] counts) {
+        int width = widthOf(key.maxIterations);
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + counts.length * width).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(width).putLong(key.tx).putLong(key.ty);
+        if (width == 2) {
+            for (int n : counts) buf.putShort((short) (n + 1));
+        } else {
+            for (int n : counts) buf.putInt(n);
+        }
+        return buf.array();
+    }
+
+    // Null when the file does not hold a complete tile for key
+    private static int[] decode(ByteBuffer buf, TileCache.Key key) {
+        int width = widthOf(key.maxIterations);
+        int n = TILE_SIZE * TILE_SIZE;
+        if (buf.remaining() != HEADER_BYTES + n * width) return null;
+        if (buf.getInt() != MAGIC || buf.getInt() != width || buf.getLong() != key.tx || buf.getLong() != key.ty) return null;
+        int[] counts = new int[n];
+        if (width == 2) {
+            short[] raw = new short[n];
+            buf.asShortBuffer().get(raw);
+            for (int k = 0; k < n; k++) counts[k] = (raw[k] & 0xFFFF) - 1;
+        } else {
+            buf.asIntBuffer().get(counts);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Incremental zoom-in: what the previous frame already says about a frame zoomed into it.
+ * - The old iteration counts, upscaled (nearest sample), are shown at once as a preview
+ * - Each new tile is classified by the old pixels under it (plus a one-pixel margin):
+ *   DETAIL (mixed counts, or not covered by the old frame) renders first, UNIFORM (one escape count) next,
+ *   INTERIOR (all at maxIterations) last
+ * - An INTERIOR tile is filled without iterating when its freshly computed border is interior too:
+ *   the set is full, so a border inside it encloses only set points (the Mariani-Silver argument);
+ *   only in the Mariani-Silver and verify modes, brute force iterates every pixel
+ * Only zooming in with the same frame size and iteration limit is seeded; other changes render normally.
+ */
+final class ZoomSeed {
+
+    // Seed zoom-ins from the previous frame (toggled from the control bar)
+    static volatile boolean enabled = true;
+
+    // Tile classes in render order
+    static final int DETAIL = 0;
+    static final int UNIFORM = 1;
+    static final int INTERIOR = 2;
+
+    private final int[] counts; // previous frame, raster order
+    private final int width, height;
+    final int maxIterations;
+
+    // New raster pixel (px, py) has its centre at old raster position (originX + px * scaleX, originY + py * scaleY)
+    private final double originX, originY, scaleX, scaleY;
+
+    private ZoomSeed(int[] counts, int width, int height, int maxIterations,
+                     double originX, double originY, double scaleX, double scaleY) {
+        this.counts = counts;
+        this.width = width;
+        this.height = height;
+        this.maxIterations = maxIterations;
+        this.originX = originX;
+        this.originY = originY;
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+    }
+
+    /**
+     * Seed for the frame after a zoom: the window of size newSpanX × newSpanY whose centre lies
+     * (shiftX, shiftY) in the plane from the centre of previous's oldSpanX × oldSpanY window.
+     * Null unless previous finished, is not cancelled and the new window is smaller.
+     */
+    static ZoomSeed of(RenderEngine.Job previous, double oldSpanX, double oldSpanY,
+                       double shiftX, double shiftY, double newSpanX, double newSpanY) {
+        if (!enabled || previous == null || previous.isCancelled() || previous.elapsedNanos() < 0) return null;
+        if (newSpanX >= oldSpanX || newSpanY >= oldSpanY) return null;
+        int w = previous.target.getWidth(), h = previous.target.getHeight();
+        double scaleX = newSpanX / oldSpanX, scaleY = newSpanY / oldSpanY;
+        // Pixel centres measured from the window centre, then back to old raster positions (y grows downwards)
+        double originX = (0.5 - w / 2.0) * scaleX + shiftX / oldSpanX * w + w / 2.0 - 0.5;
+        double originY = (0.5 - h / 2.0) * scaleY - shiftY / oldSpanY * h + h / 2.0 - 0.5;
+        return new ZoomSeed(previous.counts().clone(), w, h, previous.maxIterations, originX, originY, scaleX, scaleY);
+    }
+
+    // Whether this seed describes a width × height frame rendered with maxIterations
+    boolean fits(int width, int height, int maxIterations) {
+        return width == this.width && height == this.height && maxIterations == this.maxIterations;
+    }
+
+    // Old count nearest to new raster pixel (px, py); RenderEngine.UNRENDERED outside the old frame
+    int countAt(int px, int py) {
+        int x = (int) Math.round(originX + px * scaleX), y = (int) Math.round(originY + py * scaleY);
+        if (x < 0 || y < 0 || x >= width || y >= height) return RenderEngine.UNRENDERED;
+        return counts[y * width + x];
+    }
+
+    /**
+     * Class of the tile [x, x+w) × [y, y+h) in kernel coordinates (j up from the bottom row) of the new frame;
+     * it may reach outside the frame (lattice tiles).
+     */
+    int classify(int x, int y, int w, int h) {
+        // Raster rows of the tile, then the old pixels they cover, with a margin of one old pixel
+        int top = height - (y + h), bottom = height - 1 - y;
+        int x0 = (int) Math.floor(originX + (x - 0.5) * scaleX) - 1;
+        int x1 = (int) Math.ceil(originX + (x + w - 0.5) * scaleX) + 1;
+        int y0 = (int) Math.floor(originY + (top - 0.5) * scaleY) - 1;
+        int y1 = (int) Math.ceil(originY + (bottom + 0.5) * scaleY) + 1;
+        if (x0 < 0 || y0 < 0 || x1 >= width || y1 >= height) return DETAIL;
+
+        int first = counts[y0 * width + x0];
+        if (first == RenderEngine.UNRENDERED) return DETAIL;
+        for (int row = y0; row <= y1; row++) {
+            for (int col = x0; col <= x1; col++) {
+                if (counts[row * width + col] != first) return DETAIL;
+            }
+        }
+        return first >= maxIterations ? INTERIOR : UNIFORM;
+    }
+}
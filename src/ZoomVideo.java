@@ -0,0 +1,225 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * Zoom animation: a numbered PNG sequence zooming from the full set into a target point, without a display.
+ *
+ *   java -Djava.awt.headless=true Main --zoom c_a c_b finalZoom frames width height maxIterations outputDir
+ *
+ * Only keyframes are rendered: one per doubling of the zoom, at twice the frame resolution. Every frame between
+ * keyframe k (zoom 2^k) and k+1 is a crop of keyframe k shrunk by a factor 1..2, so it is never upscaled.
+ * Frames are resampled in parallel and handed to PNG encoder threads through a bounded queue,
+ * so encoding overlaps with rendering the next keyframe and a slow disk holds the producers back.
+ * The target point is parsed as BigDecimal: keyframes past ~1e13 zoom switch to perturbation like the panel does,
+ * with the reference orbit in double-double or BigDecimal as Precision selects.
+ */
+final class ZoomVideo {
+
+    // Width of the complex plane shown at zoom 1 (matches the panel's initial [-2.5, 2.5])
+    static final double BASE_SPAN = 5;
+
+    // Frames waiting for the encoders; producers block when it is full
+    static final int QUEUE_CAPACITY = 8;
+    static final int ENCODERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+
+    private static final Frame END = new Frame(-1, null);
+
+    private final BigDecimal centerX, centerY;
+    private final double finalZoom;
+    private final int frames, width, height, maxIterations;
+    private final File dir;
+
+    ZoomVideo(BigDecimal centerX, BigDecimal centerY, double finalZoom, int frames,
+              int width, int height, int maxIterations, File dir) {
+        if (finalZoom < 1) throw new IllegalArgumentException("final zoom must be at least 1");
+        if (frames < 2) throw new IllegalArgumentException("need at least 2 frames");
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.finalZoom = finalZoom;
+        this.frames = frames;
+        this.width = width;
+        this.height = height;
+        this.maxIterations = maxIterations;
+        this.dir = dir;
+    }
+
+    static void run(String[] args) throws IOException, InterruptedException {
+        if (args.length != 8) {
+            System.out.println("Usage: java -Djava.awt.headless=true Main --zoom <c_a> <c_b> <final zoom> <frames> "
+                    + "<width> <height> <max iterations> <output dir>");
+            System.exit(2);
+        }
+        File dir = new File(args[7]);
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create output directory " + dir);
+        new ZoomVideo(new BigDecimal(args[0]), new BigDecimal(args[1]), Double.parseDouble(args[2]),
+                Integer.parseInt(args[3]), Integer.parseInt(args[4]), Integer.parseInt(args[5]),
+                Integer.parseInt(args[6]), dir).render();
+    }
+
+    // Zoom of frame n: geometric steps, so the apparent speed is constant
+    double zoomOf(int n) {
+        return Math.pow(finalZoom, n / (double) (frames - 1));
+    }
+
+    // Keyframe a frame is cut from: the last doubling at or below its zoom
+    private int keyOf(double zoom) {
+        int keys = (int) Math.floor(Math.log(finalZoom) / Math.log(2) + 1e-9) + 1;
+        return Math.max(0, Math.min(keys - 1, (int) Math.floor(Math.log(zoom) / Math.log(2) + 1e-9)));
+    }
+
+    void render() throws IOException, InterruptedException {
+        BlockingQueue<Frame> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        AtomicInteger written = new AtomicInteger();
+        long start = System.nanoTime();
+
+        List<Thread> encoders = new ArrayList<>();
+        for (int e = 0; e < ENCODERS; e++) {
+            Thread t = new Thread(() -> encode(queue, failure, written), "zoom-video-encoder-" + e);
+            t.start();
+            encoders.add(t);
+        }
+
+        // Group frames by keyframe; frame zooms only grow, so groups are consecutive
+        int first = 0;
+        int keyframes = 0;
+        try {
+            while (first < frames && failure.get() == null) {
+                int key = keyOf(zoomOf(first));
+                int last = first;
+                while (last + 1 < frames && keyOf(zoomOf(last + 1)) == key) last++;
+
+                double keyZoom = Math.pow(2, key);
+                BufferedImage keyframe = renderKeyframe(keyZoom);
+                keyframes++;
+
+                int[] src = ((DataBufferInt) keyframe.getRaster().getDataBuffer()).getData();
+                IntStream.rangeClosed(first, last).parallel().forEach(n -> {
+                    BufferedImage frame = resample(src, keyZoom / zoomOf(n));
+                    try {
+                        queue.put(new Frame(n, frame));
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("Keyframe %d (zoom %.3g): frames %d-%d, %d written, %.1f fps%n",
+                        key, keyZoom, first, last, written.get(), written.get() / seconds);
+                first = last + 1;
+            }
+        } finally {
+            for (int e = 0; e < ENCODERS; e++) queue.put(END);
+            for (Thread t : encoders) t.join();
+        }
+        if (failure.get() != null) throw failure.get();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d frames (%d keyframes at %dx%d) in %.1f s: %.1f fps -> %s%n",
+                written.get(), keyframes, 2 * width, 2 * height, seconds, written.get() / seconds, dir);
+    }
+
+    // Keyframe at twice the frame resolution, centred on the target
+    private BufferedImage renderKeyframe(double zoom) {
+        int w = 2 * width, h = 2 * height;
+        double spanX = BASE_SPAN / zoom;
+        double spanY = spanX * height / width;
+
+        PixelKernel kernel;
+        Precision precision = Precision.select(spanX / w);
+        if (precision.isDeep()) {
+            Perturbation deep = new Perturbation(centerX, centerY, Math.hypot(spanX, spanY) / 2, maxIterations, precision);
+            kernel = deep.kernel(w, h, spanX, spanY);
+        } else {
+            double cx = centerX.doubleValue(), cy = centerY.doubleValue();
+            kernel = FractalView.mandelbrot(cx - spanX / 2, cx + spanX / 2, cy - spanY / 2, cy + spanY / 2,
+                    w, h, maxIterations).kernel();
+        }
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        RenderEngine.render(img, kernel, maxIterations);
+        return img;
+    }
+
+    /**
+     * Frame showing the centre fraction scale (0.5..1] of the keyframe.
+     * One frame pixel covers 2·scale keyframe pixels; four bilinear taps spread over it act as a box filter.
+     */
+    private BufferedImage resample(int[] src, double scale) {
+        BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] dst = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+        int srcWidth = 2 * width, srcHeight = 2 * height;
+        double step = 2 * scale;
+        double tap = step / 4;
+
+        for (int py = 0; py < height; py++) {
+            double ky = height + (py + 0.5 - height / 2.0) * step - 0.5;
+            for (int px = 0; px < width; px++) {
+                double kx = width + (px + 0.5 - width / 2.0) * step - 0.5;
+                int r = 0, g = 0, b = 0;
+                for (int t = 0; t < 4; t++) {
+                    int rgb = bilinear(src, srcWidth, srcHeight, kx + ((t & 1) == 0 ? -tap : tap), ky + (t < 2 ? -tap : tap));
+                    r += rgb >> 16 & 0xFF;
+                    g += rgb >> 8 & 0xFF;
+                    b += rgb & 0xFF;
+                }
+                dst[py * width + px] = (r + 2) / 4 << 16 | (g + 2) / 4 << 8 | (b + 2) / 4;
+            }
+        }
+        return frame;
+    }
+
+    private static int bilinear(int[] src, int w, int h, double x, double y) {
+        x = Math.max(0, Math.min(w - 1, x));
+        y = Math.max(0, Math.min(h - 1, y));
+        int x0 = (int) x, y0 = (int) y;
+        int x1 = Math.min(w - 1, x0 + 1), y1 = Math.min(h - 1, y0 + 1);
+        double fx = x - x0, fy = y - y0;
+
+        int c00 = src[y0 * w + x0], c10 = src[y0 * w + x1], c01 = src[y1 * w + x0], c11 = src[y1 * w + x1];
+        int rgb = 0;
+        for (int shift = 16; shift >= 0; shift -= 8) {
+            double top = (c00 >> shift & 0xFF) * (1 - fx) + (c10 >> shift & 0xFF) * fx;
+            double bottom = (c01 >> shift & 0xFF) * (1 - fx) + (c11 >> shift & 0xFF) * fx;
+            rgb |= (int) Math.round(top * (1 - fy) + bottom * fy) << shift;
+        }
+        return rgb;
+    }
+
+    // Encoder stage: writes frames until it takes END
+    private void encode(BlockingQueue<Frame> queue, AtomicReference<IOException> failure, AtomicInteger written) {
+        try {
+            for (Frame f = queue.take(); f != END; f = queue.take()) {
+                if (failure.get() != null) continue; // drain so producers never block on a dead pipeline
+                try {
+                    ImageIO.write(f.image, "png", new File(dir, String.format("frame%05d.png", f.number)));
+                    written.incrementAndGet();
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Frame {
+        final int number;
+        final BufferedImage image;
+
+        Frame(int number, BufferedImage image) {
+            this.number = number;
+            this.image = image;
+        }
+    }
+}